@@ -0,0 +1,77 @@
+
+package com.railway.booking.benchmarks;
+
+import com.railway.booking.RailwayBookingApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Starts the booking application on an in-memory H2 database for the JMH suites. Settings are
+ * passed as command-line arguments so they win over the application.properties in the
+ * application jar. Payment holds are off so bookings confirm straight away.
+ */
+final class BenchmarkApplication {
+    
+    private BenchmarkApplication() {
+    }
+    
+    static ConfigurableApplicationContext start(String... overrides) {
+        return run(defaults(UUID.randomUUID().toString()), overrides);
+    }
+    
+    /**
+     * Starts one web node of an in-process cluster. Nodes given the same database name share
+     * one H2 database, the way separate hosts would share MySQL; each gets its own ledger.
+     */
+    static ConfigurableApplicationContext startNode(String database, int port, String... overrides) {
+        Map<String, String> settings = defaults(database);
+        settings.put("spring.main.web-application-type", "servlet");
+        settings.put("server.port", String.valueOf(port));
+        settings.put("spring.jpa.hibernate.ddl-auto", "update");
+        return run(settings, overrides);
+    }
+    
+    private static Map<String, String> defaults(String database) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("spring.main.web-application-type", "none");
+        settings.put("spring.main.banner-mode", "off");
+        settings.put("spring.datasource.url", "jdbc:h2:mem:" + database + ";DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        settings.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        settings.put("spring.datasource.username", "sa");
+        settings.put("spring.datasource.password", "");
+        settings.put("spring.datasource.hikari.maximum-pool-size", "16");
+        settings.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        settings.put("spring.jpa.show-sql", "false");
+        settings.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        settings.put("booking.ledger.dir", ledgerDirectory());
+        settings.put("booking.payment.required", "false");
+        settings.put("logging.level.root", "WARN");
+        return settings;
+    }
+    
+    // Overrides are "--name=value" and replace the default of the same name
+    private static ConfigurableApplicationContext run(Map<String, String> settings, String... overrides) {
+        for (String override : overrides) {
+            int eq = override.indexOf('=');
+            settings.put(override.substring(2, eq), override.substring(eq + 1));
+        }
+        String[] args = settings.entrySet().stream()
+                .map(setting -> "--" + setting.getKey() + "=" + setting.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(RailwayBookingApplication.class).run(args);
+    }
+    
+    private static String ledgerDirectory() {
+        try {
+            return Files.createTempDirectory("booking-ledger").toString();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot create ledger directory", e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+
+package com.railway.booking.benchmarks;
+
+import com.railway.booking.model.Booking;
+import com.railway.booking.model.Passenger;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.User;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.repository.UserRepository;
+import com.railway.booking.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BookingService.createBooking and cancelBooking through the full Spring stack on H2, with
+ * every thread booking the same TrainClass. Each iteration books a fresh journey date so the
+ * class never sells out mid-measurement.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingBenchmark {
+    
+    private static final int CAPACITY = 100_000;
+    private static final int USERS = 64;
+    
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private Long trainId;
+    private Long trainClassId;
+    private Long[] userIds;
+    private final AtomicInteger threads = new AtomicInteger();
+    private int iteration;
+    private volatile Date journeyDate;
+    
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        bookingService = context.getBean(BookingService.class);
+        
+        StationRepository stationRepository = context.getBean(StationRepository.class);
+        Station source = stationRepository.save(station("SRC"));
+        Station destination = stationRepository.save(station("DST"));
+        
+        Train train = new Train();
+        train.setNumber("10001");
+        train.setName("Benchmark Express");
+        train.setSourceStation(source);
+        train.setDestinationStation(destination);
+        train.setDepartureTime("06:00");
+        train.setArrivalTime("14:00");
+        train.setTotalSeats(CAPACITY);
+        TrainClass trainClass = new TrainClass();
+        trainClass.setTrain(train);
+        trainClass.setClassName("SLEEPER");
+        trainClass.setTotalSeats(CAPACITY);
+        trainClass.setAvailableSeats(CAPACITY);
+        trainClass.setFare(new BigDecimal("450.00"));
+        train.getTrainClasses().add(trainClass);
+        train = context.getBean(TrainRepository.class).save(train);
+        trainId = train.getId();
+        trainClassId = train.getTrainClasses().iterator().next().getId();
+        
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        userIds = new Long[USERS];
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setName("Benchmark User " + i);
+            user.setEmail("bench" + i + "@example.com");
+            user.setPassword("password");
+            user.setRole("ROLE_USER");
+            userIds[i] = userRepository.save(user).getId();
+        }
+    }
+    
+    @Setup(Level.Iteration)
+    public void nextJourneyDate() {
+        LocalDate date = LocalDate.now().plusDays(1 + iteration++);
+        journeyDate = Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    @State(Scope.Thread)
+    public static class Caller {
+        
+        Long userId;
+        
+        @Setup(Level.Trial)
+        public void pickUser(BookingBenchmark benchmark) {
+            userId = benchmark.userIds[benchmark.threads.getAndIncrement() % USERS];
+        }
+    }
+    
+    @Benchmark
+    public Booking createBooking(Caller caller) {
+        return book(caller);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public Booking createBookingContended(Caller caller) {
+        return book(caller);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public Long createAndCancelContended(Caller caller) {
+        Booking booking = book(caller);
+        bookingService.cancelBooking(booking.getId());
+        return booking.getId();
+    }
+    
+    private Booking book(Caller caller) {
+        return bookingService.createBooking(caller.userId, trainId, trainClassId, journeyDate, passenger());
+    }
+    
+    private static List<Passenger> passenger() {
+        Passenger passenger = new Passenger();
+        passenger.setName("Passenger");
+        passenger.setAge(34);
+        passenger.setGender("F");
+        return Collections.singletonList(passenger);
+    }
+    
+    private static Station station(String code) {
+        Station station = new Station();
+        station.setCode(code);
+        station.setName(code + " Central");
+        station.setCity(code);
+        return station;
+    }
+}
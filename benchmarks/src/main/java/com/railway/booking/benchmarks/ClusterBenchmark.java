@@ -0,0 +1,247 @@
+
+package com.railway.booking.benchmarks;
+
+import com.railway.booking.cluster.ClusterClient;
+import com.railway.booking.cluster.ClusterMembership;
+import com.railway.booking.cluster.Ring;
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.User;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Booking throughput over HTTP against 1, 2 and 4 in-process nodes sharing one H2 database,
+ * with inventory partitioned across them. {@code bookViaAnyNode} sends each booking to a
+ * random node and lets it forward to the owner; {@code bookViaOwner} routes on the client.
+ * Every other iteration takes the last node out of the membership and the next puts it back,
+ * so bookings run across rebalances, and each iteration ends by checking that no seat was
+ * sold twice. All nodes share this machine's cores, so the scaling seen here is a lower
+ * bound on what separate hosts would give.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 4, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClusterBenchmark {
+    
+    private static final int TRAINS = 64;
+    private static final int CAPACITY = 100_000;
+    private static final int USERS = 64;
+    private static final String SECRET = "benchmark-secret";
+    
+    @Param({"1", "2", "4"})
+    public int nodes;
+    
+    private ConfigurableApplicationContext[] contexts;
+    private Map<String, String> members;
+    private String[] urls;
+    private Long[] trainIds;
+    private Long[] trainClassIds;
+    private Long[] userIds;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private int iteration;
+    private volatile long journeyDate;
+    private volatile long journeyDay;
+    private volatile Ring ring;
+    
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        String database = UUID.randomUUID().toString();
+        members = new LinkedHashMap<>();
+        urls = new String[nodes];
+        for (int i = 0; i < nodes; i++) {
+            urls[i] = "http://localhost:" + freePort();
+            members.put("node" + i, urls[i]);
+        }
+        String spec = members.entrySet().stream()
+                .map(member -> member.getKey() + "=" + member.getValue())
+                .collect(Collectors.joining(","));
+        contexts = new ConfigurableApplicationContext[nodes];
+        for (int i = 0; i < nodes; i++) {
+            contexts[i] = BenchmarkApplication.startNode(database, URI.create(urls[i]).getPort(),
+                    "--booking.cluster.self=node" + i,
+                    "--booking.cluster.nodes=" + spec,
+                    "--booking.cluster.secret=" + SECRET,
+                    "--booking.cluster.handoff-ms=0",
+                    "--booking.pnr.node-id=" + i,
+                    "--booking.admission.user-rate-per-second=1000000",
+                    "--booking.admission.user-burst=1000000");
+        }
+        seed(contexts[0]);
+    }
+    
+    @Setup(Level.Iteration)
+    public void nextIteration() throws IOException, InterruptedException {
+        if (nodes > 1) {
+            Map<String, String> next = new LinkedHashMap<>(members);
+            if (iteration % 2 == 1) {
+                next.remove("node" + (nodes - 1));
+            }
+            send(urls[0], "PUT", "/api/cluster/nodes", "{\"nodes\":" + json(next) + "}");
+        }
+        ring = contexts[0].getBean(ClusterMembership.class).getRing();
+        LocalDate date = LocalDate.now().plusDays(1 + iteration++);
+        journeyDate = date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        journeyDay = date.toEpochDay();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void checkNoSeatSoldTwice() {
+        List<Map<String, Object>> doubleBooked = contexts[0].getBean(JdbcTemplate.class).queryForList(
+                "SELECT b.train_class_id, b.journey_date, p.seat_number FROM passengers p JOIN bookings b ON b.id = p.booking_id " +
+                        "WHERE b.status <> 'CANCELLED' AND p.seat_number IS NOT NULL " +
+                        "GROUP BY b.train_class_id, b.journey_date, p.seat_number HAVING COUNT(*) > 1");
+        if (!doubleBooked.isEmpty()) {
+            throw new IllegalStateException("Seats held by more than one passenger: " + doubleBooked);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        for (int i = contexts.length - 1; i >= 0; i--) {
+            contexts[i].close();
+        }
+    }
+    
+    @Benchmark
+    @Threads(16)
+    public int bookViaAnyNode() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return book(urls[random.nextInt(nodes)], random.nextInt(TRAINS), random);
+    }
+    
+    @Benchmark
+    @Threads(16)
+    public int bookViaOwner() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int train = random.nextInt(TRAINS);
+        String owner = ring.owner(new InventoryKey(trainClassIds[train], journeyDay));
+        return book(ring.url(owner), train, random);
+    }
+    
+    private int book(String url, int train, ThreadLocalRandom random) throws IOException, InterruptedException {
+        String body = "{\"userId\":" + userIds[random.nextInt(USERS)]
+                + ",\"trainId\":" + trainIds[train]
+                + ",\"trainClassId\":" + trainClassIds[train]
+                + ",\"journeyDate\":" + journeyDate
+                + ",\"passengers\":[{\"name\":\"Passenger\",\"age\":34,\"gender\":\"F\"}]}";
+        return send(url, "POST", "/api/bookings", body);
+    }
+    
+    private int send(String url, String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                .header("Content-Type", "application/json")
+                .header(ClusterClient.SECRET, SECRET)
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(method + " " + path + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response.statusCode();
+    }
+    
+    private void seed(ConfigurableApplicationContext context) {
+        StationRepository stationRepository = context.getBean(StationRepository.class);
+        Station source = stationRepository.save(station("SRC"));
+        Station destination = stationRepository.save(station("DST"));
+        TrainRepository trainRepository = context.getBean(TrainRepository.class);
+        trainIds = new Long[TRAINS];
+        trainClassIds = new Long[TRAINS];
+        for (int i = 0; i < TRAINS; i++) {
+            Train train = new Train();
+            train.setNumber(String.valueOf(30001 + i));
+            train.setName("Cluster Express " + i);
+            train.setSourceStation(source);
+            train.setDestinationStation(destination);
+            train.setDepartureTime("06:00");
+            train.setArrivalTime("14:00");
+            train.setTotalSeats(CAPACITY);
+            TrainClass trainClass = new TrainClass();
+            trainClass.setTrain(train);
+            trainClass.setClassName("SLEEPER");
+            trainClass.setTotalSeats(CAPACITY);
+            trainClass.setAvailableSeats(CAPACITY);
+            trainClass.setFare(new BigDecimal("450.00"));
+            train.getTrainClasses().add(trainClass);
+            train = trainRepository.save(train);
+            trainIds[i] = train.getId();
+            trainClassIds[i] = train.getTrainClasses().iterator().next().getId();
+        }
+        
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        userIds = new Long[USERS];
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setName("Cluster User " + i);
+            user.setEmail("cluster" + i + "@example.com");
+            user.setPassword("password");
+            user.setRole("ROLE_USER");
+            userIds[i] = userRepository.save(user).getId();
+        }
+    }
+    
+    private static String json(Map<String, String> members) {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, String> member : members.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(member.getKey()).append("\":\"").append(member.getValue()).append('"');
+        }
+        return json.append('}').toString();
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+    
+    private static Station station(String code) {
+        Station station = new Station();
+        station.setCode(code);
+        station.setName(code + " Central");
+        station.setCity(code);
+        return station;
+    }
+}
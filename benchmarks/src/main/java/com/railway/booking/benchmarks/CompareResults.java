@@ -0,0 +1,66 @@
+
+package com.railway.booking.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files, typically the last release against the current build:
+ * {@code java -cp benchmarks.jar com.railway.booking.benchmarks.CompareResults <baseline.json> <current.json> [threshold%]}.
+ * Exits with status 1 if any benchmark got worse by more than the threshold (default 10%).
+ */
+public class CompareResults {
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: CompareResults <baseline.json> <current.json> [threshold%]");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            double score = after.path("primaryMetric").path("score").asDouble();
+            if (before == null) {
+                System.out.printf("%-80s %14.3f %s (new)%n", entry.getKey(), score, unit);
+                continue;
+            }
+            double previous = before.path("primaryMetric").path("score").asDouble();
+            double change = previous == 0 ? 0 : (score - previous) * 100 / previous;
+            // Throughput is better when higher; every other mode reports a time per operation
+            double worse = "thrpt".equals(after.path("mode").asText()) ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-80s %14.3f %s %+7.1f%%%s%n", entry.getKey(), score, unit, change,
+                    regressed ? "  REGRESSION" : "");
+        }
+        System.out.printf("%d benchmark(s), %d regression(s) over %.1f%%%n", current.size(), regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+    
+    // Keyed by benchmark name, mode, thread count and @Param values
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText())
+                    .append(' ').append(result.path("mode").asText())
+                    .append(" threads=").append(result.path("threads").asText());
+            result.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,213 @@
+
+package com.railway.booking.benchmarks;
+
+import com.railway.booking.inventory.SeatInventory;
+import com.railway.booking.inventory.SeatInventoryWriter;
+import com.railway.booking.inventory.StopRange;
+import com.railway.booking.model.Booking;
+import com.railway.booking.model.Passenger;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.User;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.repository.UserRepository;
+import com.railway.booking.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stress test for the no-oversell invariant. Sixteen threads book and cancel on one small
+ * class and date, keeping it at the edge of selling out with the waitlist promoting into
+ * freed seats. After every iteration the teardown waits for the system to settle and fails
+ * the run unless no seat is held twice, no more seats are held than exist, and both the
+ * in-memory layout and train_classes.available_seats agree with the passengers table.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryConsistencyBenchmark {
+    
+    private static final int CAPACITY = 200;
+    private static final int USERS = 64;
+    
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private JdbcTemplate jdbcTemplate;
+    private TrainClass trainClass;
+    private Long trainId;
+    private Long trainClassId;
+    private Long[] userIds;
+    private Date journeyDate;
+    private final Queue<Long> booked = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger threads = new AtomicInteger();
+    
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        bookingService = context.getBean(BookingService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        
+        StationRepository stationRepository = context.getBean(StationRepository.class);
+        Station source = new Station();
+        source.setCode("SRC");
+        source.setName("Source");
+        Station destination = new Station();
+        destination.setCode("DST");
+        destination.setName("Destination");
+        
+        Train train = new Train();
+        train.setNumber("20001");
+        train.setName("Consistency Express");
+        train.setSourceStation(stationRepository.save(source));
+        train.setDestinationStation(stationRepository.save(destination));
+        train.setDepartureTime("06:00");
+        train.setArrivalTime("14:00");
+        train.setTotalSeats(CAPACITY);
+        TrainClass newClass = new TrainClass();
+        newClass.setTrain(train);
+        newClass.setClassName("SLEEPER");
+        newClass.setTotalSeats(CAPACITY);
+        newClass.setAvailableSeats(CAPACITY);
+        newClass.setFare(new BigDecimal("450.00"));
+        train.getTrainClasses().add(newClass);
+        train = context.getBean(TrainRepository.class).save(train);
+        trainId = train.getId();
+        trainClassId = train.getTrainClasses().iterator().next().getId();
+        // Loaded with its schedule so the invariant check can work out the stop range outside a session
+        trainClass = context.getBean(TrainRepository.class).findWithScheduleById(trainId)
+                .orElseThrow(IllegalStateException::new)
+                .getTrainClasses().iterator().next();
+        
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        userIds = new Long[USERS];
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setName("Stress User " + i);
+            user.setEmail("stress" + i + "@example.com");
+            user.setPassword("password");
+            user.setRole("ROLE_USER");
+            userIds[i] = userRepository.save(user).getId();
+        }
+        journeyDate = Date.from(LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+    
+    @TearDown(Level.Iteration)
+    public void checkInvariant() throws InterruptedException {
+        // Promotions and seat-count flushes finish asynchronously; give them time to settle
+        String violation = null;
+        for (int attempt = 0; attempt < 50; attempt++) {
+            context.getBean(SeatInventoryWriter.class).flush();
+            violation = violation();
+            if (violation == null) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException(violation);
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    @State(Scope.Thread)
+    public static class Caller {
+        
+        Long userId;
+        
+        @Setup(Level.Trial)
+        public void pickUser(InventoryConsistencyBenchmark benchmark) {
+            userId = benchmark.userIds[benchmark.threads.getAndIncrement() % USERS];
+        }
+    }
+    
+    // Half the operations cancel an earlier booking, so freed seats are fought over continuously
+    @Benchmark
+    @Threads(16)
+    public Long bookOrCancel(Caller caller) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            Long cancel = random.nextBoolean() ? booked.poll() : null;
+            if (cancel != null) {
+                bookingService.cancelBooking(cancel);
+                return cancel;
+            }
+            Booking booking = bookingService.createBooking(caller.userId, trainId, trainClassId, journeyDate,
+                    passengers(1 + random.nextInt(2)));
+            booked.add(booking.getId());
+            return booking.getId();
+        } catch (RuntimeException e) {
+            // Sold out with a full waitlist is an expected outcome here
+            return null;
+        }
+    }
+    
+    private String violation() {
+        List<Integer> doubleBooked = jdbcTemplate.queryForList(
+                "SELECT p.seat_number FROM passengers p JOIN bookings b ON b.id = p.booking_id " +
+                        "WHERE b.train_class_id = ? AND b.status <> 'CANCELLED' AND p.seat_number IS NOT NULL " +
+                        "GROUP BY p.seat_number HAVING COUNT(*) > 1", Integer.class, trainClassId);
+        if (!doubleBooked.isEmpty()) {
+            return "Seats held by more than one passenger: " + doubleBooked;
+        }
+        int seated = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM passengers p JOIN bookings b ON b.id = p.booking_id " +
+                        "WHERE b.train_class_id = ? AND b.status <> 'CANCELLED' AND p.seat_number IS NOT NULL",
+                Integer.class, trainClassId);
+        if (seated > CAPACITY) {
+            return seated + " seated passengers on a " + CAPACITY + "-seat class";
+        }
+        int stored = jdbcTemplate.queryForObject("SELECT available_seats FROM train_classes WHERE id = ?",
+                Integer.class, trainClassId);
+        int inMemory = context.getBean(SeatInventory.class).getAvailableSeats(trainClass, journeyDate,
+                StopRange.fullRoute(trainClass.getTrain()));
+        if (stored != CAPACITY - seated || inMemory != CAPACITY - seated) {
+            return "Available seats: " + stored + " stored, " + inMemory + " in memory, "
+                    + (CAPACITY - seated) + " by passengers";
+        }
+        return null;
+    }
+    
+    private static List<Passenger> passengers(int count) {
+        List<Passenger> passengers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Passenger passenger = new Passenger();
+            passenger.setName("Passenger " + i);
+            passenger.setAge(30 + i);
+            passenger.setGender("M");
+            passengers.add(passenger);
+        }
+        return passengers;
+    }
+}
@@ -0,0 +1,235 @@
+
+package com.railway.booking.benchmarks;
+
+import com.railway.booking.fare.FareEngine;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.User;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.repository.UserRepository;
+import com.railway.booking.search.RouteIndex;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop HTTP load driver for comparing {@code booking.execution.mode=platform} and
+ * {@code virtual}. It starts one node in the given mode on an in-memory H2 database, seeds
+ * trains and users, and sends a mix of POST /api/bookings and dated searches:
+ * {@code java -cp target/benchmarks.jar com.railway.booking.benchmarks.LoadTestDriver <platform|virtual> [clients] [requests] [search-percent]}.
+ * The virtual mode needs a Java 21 runtime.
+ */
+public class LoadTestDriver {
+    
+    private static final int TRAINS = 64;
+    private static final int CAPACITY = 100_000;
+    private static final int USERS = 256;
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || !(args[0].equals("platform") || args[0].equals("virtual"))) {
+            System.err.println("usage: LoadTestDriver <platform|virtual> [clients] [requests] [search-percent]");
+            System.exit(2);
+        }
+        String mode = args[0];
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+        int searchPercent = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        
+        int port = freePort();
+        ConfigurableApplicationContext context = BenchmarkApplication.startNode(UUID.randomUUID().toString(), port,
+                "--booking.execution.mode=" + mode,
+                "--booking.admission.user-rate-per-second=1000000",
+                "--booking.admission.user-burst=1000000");
+        try {
+            Seed seed = seed(context);
+            String url = "http://localhost:" + port;
+            long journeyDate = LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            HttpRequest search = HttpRequest.newBuilder(URI.create(url + "/api/trains/search?sourceId=" + seed.sourceId
+                            + "&destinationId=" + seed.destinationId + "&journeyDate=" + LocalDate.now().plusDays(1)))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            run(mode, clients, requests, searchPercent, url, seed, journeyDate, search);
+        } finally {
+            context.close();
+        }
+    }
+    
+    private static void run(String mode, int clients, int requests, int searchPercent, String url, Seed seed,
+                            long journeyDate, HttpRequest search) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long[] bookingLatencies = new long[requests];
+        long[] searchLatencies = new long[requests];
+        AtomicInteger bookings = new AtomicInteger();
+        AtomicInteger searches = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Map<Integer, Integer> errors = new ConcurrentSkipListMap<>();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(clients);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            pool.execute(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (next.getAndIncrement() < requests) {
+                        boolean searching = random.nextInt(100) < searchPercent;
+                        HttpRequest request = searching ? search : booking(url, seed, journeyDate, random);
+                        long t0 = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            // Admission turning a booking away is an answer, not a failure
+                            if (status == 409 || status == 429 || status == 503) {
+                                rejected.incrementAndGet();
+                            } else if (status >= 400) {
+                                errors.merge(status, 1, Integer::sum);
+                            }
+                        } catch (Exception e) {
+                            // No response at all: timeouts and refused or reset connections
+                            failures.incrementAndGet();
+                        }
+                        long latency = System.nanoTime() - t0;
+                        if (searching) {
+                            searchLatencies[searches.getAndIncrement()] = latency;
+                        } else {
+                            bookingLatencies[bookings.getAndIncrement()] = latency;
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        
+        System.out.printf("mode=%s requests=%d clients=%d rejected=%d errors=%s failures=%d%n",
+                mode, requests, clients, rejected.get(), errors, failures.get());
+        System.out.printf("throughput=%.1f req/s%n", requests / (elapsed / 1e9));
+        report("bookings", bookingLatencies, bookings.get());
+        report("searches", searchLatencies, searches.get());
+    }
+    
+    private static HttpRequest booking(String url, Seed seed, long journeyDate, ThreadLocalRandom random) {
+        int train = random.nextInt(TRAINS);
+        String body = "{\"userId\":" + seed.userIds[random.nextInt(USERS)]
+                + ",\"trainId\":" + seed.trainIds[train]
+                + ",\"trainClassId\":" + seed.trainClassIds[train]
+                + ",\"journeyDate\":" + journeyDate
+                + ",\"passengers\":[{\"name\":\"Passenger\",\"age\":34,\"gender\":\"F\"}]}";
+        return HttpRequest.newBuilder(URI.create(url + "/api/bookings"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+    
+    private static void report(String name, long[] latencies, int count) {
+        if (count == 0) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        System.out.printf("%s=%d p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms%n", name, count,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99), sorted[count - 1] / 1e6);
+    }
+    
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+    
+    private static Seed seed(ConfigurableApplicationContext context) {
+        Seed seed = new Seed();
+        StationRepository stationRepository = context.getBean(StationRepository.class);
+        Station source = stationRepository.save(station("SRC"));
+        Station destination = stationRepository.save(station("DST"));
+        seed.sourceId = source.getId();
+        seed.destinationId = destination.getId();
+        
+        TrainRepository trainRepository = context.getBean(TrainRepository.class);
+        for (int i = 0; i < TRAINS; i++) {
+            Train train = new Train();
+            train.setNumber(String.valueOf(40001 + i));
+            train.setName("Load Express " + i);
+            train.setSourceStation(source);
+            train.setDestinationStation(destination);
+            train.setDepartureTime("06:00");
+            train.setArrivalTime("14:00");
+            train.setTotalSeats(CAPACITY);
+            TrainClass trainClass = new TrainClass();
+            trainClass.setTrain(train);
+            trainClass.setClassName("SLEEPER");
+            trainClass.setTotalSeats(CAPACITY);
+            trainClass.setAvailableSeats(CAPACITY);
+            trainClass.setFare(new BigDecimal("450.00"));
+            train.getTrainClasses().add(trainClass);
+            train = trainRepository.save(train);
+            seed.trainIds[i] = train.getId();
+            seed.trainClassIds[i] = train.getTrainClasses().iterator().next().getId();
+        }
+        // The indexes were built on startup, before any trains existed
+        context.getBean(RouteIndex.class).rebuild();
+        context.getBean(FareEngine.class).rebuild();
+        
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setName("Load User " + i);
+            user.setEmail("load" + i + "@example.com");
+            user.setPassword("password");
+            user.setRole("ROLE_USER");
+            seed.userIds[i] = userRepository.save(user).getId();
+        }
+        return seed;
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+    
+    private static Station station(String code) {
+        Station station = new Station();
+        station.setCode(code);
+        station.setName(code + " Central");
+        station.setCity(code);
+        return station;
+    }
+    
+    private static final class Seed {
+        
+        Long sourceId;
+        Long destinationId;
+        final Long[] trainIds = new Long[TRAINS];
+        final Long[] trainClassIds = new Long[TRAINS];
+        final Long[] userIds = new Long[USERS];
+    }
+}
@@ -0,0 +1,54 @@
+
+package com.railway.booking.benchmarks;
+
+import com.railway.booking.util.PnrGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PnrGenerator against the UUID-based PNRs it replaced, single-threaded and contended.
+ * Run with {@code -prof gc} to compare allocation per PNR.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PnrGeneratorBenchmark {
+    
+    private final PnrGenerator generator = new PnrGenerator(1);
+    
+    @Benchmark
+    public String uuid() {
+        return "PNR" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+    
+    @Benchmark
+    public String generator() {
+        return generator.next();
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public String uuidContended() {
+        return uuid();
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public String generatorContended() {
+        return generator.next();
+    }
+}
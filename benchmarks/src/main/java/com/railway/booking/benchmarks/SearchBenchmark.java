@@ -0,0 +1,186 @@
+
+package com.railway.booking.benchmarks;
+
+import com.railway.booking.dto.TrainSearchResult;
+import com.railway.booking.fare.FareEngine;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.TrainStop;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.search.RouteIndex;
+import com.railway.booking.service.TrainService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TrainService.searchTrains over a synthetic network: {@code lines} corridors of ten
+ * stations each, with {@code trains} trains running random stretches of them. Queries cycle
+ * through station pairs that real trains serve, with and without a journey date.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    
+    private static final int STATIONS_PER_LINE = 10;
+    private static final String[] CLASSES = {"SLEEPER", "AC_3", "AC_2"};
+    private static final int QUERIES = 1024;
+    
+    @Param("10000")
+    private int trains;
+    
+    @Param("100")
+    private int lines;
+    
+    private ConfigurableApplicationContext context;
+    private TrainService trainService;
+    private final long[][] queries = new long[QUERIES][];
+    private Date journeyDate;
+    
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        trainService = context.getBean(TrainService.class);
+        Random random = new Random(42);
+        
+        List<Station> stations = new ArrayList<>();
+        for (int i = 0; i < lines * STATIONS_PER_LINE; i++) {
+            Station station = new Station();
+            station.setCode("S" + i);
+            station.setName("Station " + i);
+            station.setCity("City " + i / STATIONS_PER_LINE);
+            stations.add(station);
+        }
+        stations = context.getBean(StationRepository.class).saveAll(stations);
+        
+        TrainRepository trainRepository = context.getBean(TrainRepository.class);
+        TransactionTemplate transaction = context.getBean(TransactionTemplate.class);
+        List<Station> network = stations;
+        for (int start = 0; start < trains; start += 500) {
+            int first = start;
+            transaction.executeWithoutResult(status -> {
+                List<Train> batch = new ArrayList<>();
+                for (int i = first; i < Math.min(first + 500, trains); i++) {
+                    batch.add(train(i, network, random));
+                }
+                trainRepository.saveAll(batch);
+            });
+        }
+        // The indexes were built on startup, before any trains existed
+        context.getBean(RouteIndex.class).rebuild();
+        context.getBean(FareEngine.class).rebuild();
+        
+        for (int i = 0; i < QUERIES; i++) {
+            int line = random.nextInt(lines);
+            int from = random.nextInt(STATIONS_PER_LINE - 1);
+            int to = from + 1 + random.nextInt(STATIONS_PER_LINE - 1 - from);
+            queries[i] = new long[] {
+                    network.get(line * STATIONS_PER_LINE + from).getId(),
+                    network.get(line * STATIONS_PER_LINE + to).getId()};
+        }
+        journeyDate = Date.from(LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    @State(Scope.Thread)
+    public static class Cursor {
+        
+        int next;
+        
+        long[] nextQuery(SearchBenchmark benchmark) {
+            return benchmark.queries[next++ & (QUERIES - 1)];
+        }
+    }
+    
+    @Benchmark
+    public List<TrainSearchResult> search(Cursor cursor) {
+        long[] query = cursor.nextQuery(this);
+        return trainService.searchTrains(query[0], query[1], 1, null);
+    }
+    
+    @Benchmark
+    public List<TrainSearchResult> searchWithDate(Cursor cursor) {
+        long[] query = cursor.nextQuery(this);
+        return trainService.searchTrains(query[0], query[1], 1, journeyDate);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public List<TrainSearchResult> searchWithDateContended(Cursor cursor) {
+        long[] query = cursor.nextQuery(this);
+        return trainService.searchTrains(query[0], query[1], 1, journeyDate);
+    }
+    
+    // Runs a random stretch of at least three stops along one line
+    private Train train(int index, List<Station> network, Random random) {
+        int line = random.nextInt(lines);
+        int from = random.nextInt(STATIONS_PER_LINE - 2);
+        int to = from + 2 + random.nextInt(STATIONS_PER_LINE - 2 - from);
+        int departure = random.nextInt(24 * 60);
+        
+        Train train = new Train();
+        train.setNumber(String.valueOf(10000 + index));
+        train.setName("Train " + index);
+        train.setSourceStation(network.get(line * STATIONS_PER_LINE + from));
+        train.setDestinationStation(network.get(line * STATIONS_PER_LINE + to));
+        train.setDepartureTime(time(departure));
+        train.setArrivalTime(time(departure + (to - from) * 45));
+        train.setTotalSeats(CLASSES.length * 72);
+        for (int stop = from; stop <= to; stop++) {
+            TrainStop trainStop = new TrainStop();
+            trainStop.setTrain(train);
+            trainStop.setStation(network.get(line * STATIONS_PER_LINE + stop));
+            trainStop.setStopSequence(stop - from);
+            trainStop.setArrivalTime(stop == from ? null : time(departure + (stop - from) * 45 - 5));
+            trainStop.setDepartureTime(stop == to ? null : time(departure + (stop - from) * 45));
+            trainStop.setDistanceKm((stop - from) * 60);
+            train.getStops().add(trainStop);
+        }
+        for (int i = 0; i < CLASSES.length; i++) {
+            TrainClass trainClass = new TrainClass();
+            trainClass.setTrain(train);
+            trainClass.setClassName(CLASSES[i]);
+            trainClass.setTotalSeats(72);
+            trainClass.setAvailableSeats(72);
+            trainClass.setFare(new BigDecimal(400 * (i + 1)));
+            train.getTrainClasses().add(trainClass);
+        }
+        return train;
+    }
+    
+    private static String time(int minutes) {
+        return String.format("%02d:%02d", (minutes / 60) % 24, minutes % 60);
+    }
+}
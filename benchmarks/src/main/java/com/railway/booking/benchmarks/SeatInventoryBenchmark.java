@@ -0,0 +1,90 @@
+
+package com.railway.booking.benchmarks;
+
+import com.railway.booking.inventory.SeatLayout;
+import com.railway.booking.inventory.SeatMap;
+import com.railway.booking.inventory.SegmentSeatMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory half of createBooking and cancelBooking: allocating and releasing seats on
+ * one class, point-to-point and with intermediate stops, without the database. Each
+ * operation books and cancels, so the layout stays near {@code fill} occupancy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeatInventoryBenchmark {
+    
+    private static final int CAPACITY = 600;
+    private static final int SEGMENTS = 16;
+    
+    @Param({"0", "90"})
+    private int fill;
+    
+    private SeatLayout seatMap;
+    private SeatLayout segmentSeatMap;
+    
+    @Setup(Level.Trial)
+    public void fill() {
+        seatMap = new SeatMap(CAPACITY);
+        segmentSeatMap = new SegmentSeatMap(CAPACITY, SEGMENTS);
+        int seats = CAPACITY * fill / 100;
+        seatMap.allocate(seats, 0, 1);
+        segmentSeatMap.allocate(seats, 0, SEGMENTS);
+    }
+    
+    @Benchmark
+    public int[] seatMap() {
+        return bookAndCancel(seatMap, 0, 1);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public int[] seatMapContended() {
+        return bookAndCancel(seatMap, 0, 1);
+    }
+    
+    @Benchmark
+    public int[] segmentSeatMap() {
+        return bookAndCancelStretch(segmentSeatMap);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public int[] segmentSeatMapContended() {
+        return bookAndCancelStretch(segmentSeatMap);
+    }
+    
+    private static int[] bookAndCancelStretch(SeatLayout layout) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(SEGMENTS);
+        return bookAndCancel(layout, from, from + 1 + random.nextInt(SEGMENTS - from));
+    }
+    
+    private static int[] bookAndCancel(SeatLayout layout, int fromStop, int toStop) {
+        int[] seats = layout.allocate(2, fromStop, toStop);
+        if (seats != null) {
+            layout.release(seats, fromStop, toStop);
+        }
+        return seats;
+    }
+}
@@ -3,8 +3,10 @@ package com.railway.booking;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RailwayBookingApplication {
     
     public static void main(String[] args) {
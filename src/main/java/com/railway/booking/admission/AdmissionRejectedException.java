@@ -0,0 +1,15 @@
+
+package com.railway.booking.admission;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class AdmissionRejectedException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,129 @@
+
+package com.railway.booking.admission;
+
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.inventory.SeatInventory;
+import com.railway.booking.metrics.BookingMetrics;
+import com.railway.booking.waitlist.Waitlist;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gatekeeper in front of booking creation. Requests that cannot succeed are turned away
+ * before they take a database connection: classes already sold out in memory with a full
+ * waitlist, users over their token-bucket rate, and trains whose FIFO queue is full.
+ * Admitted requests hold one of a train's limited permits until the booking returns.
+ */
+@Component
+public class BookingAdmission {
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private Waitlist waitlist;
+    
+    @Autowired
+    private BookingMetrics bookingMetrics;
+    
+    @Value("${booking.admission.user-rate-per-second:1.0}")
+    private double userRatePerSecond;
+    
+    @Value("${booking.admission.user-burst:5}")
+    private int userBurst;
+    
+    @Value("${booking.admission.train-concurrency:8}")
+    private int trainConcurrency;
+    
+    @Value("${booking.admission.train-queue-length:200}")
+    private int trainQueueLength;
+    
+    @Value("${booking.admission.queue-timeout-ms:2000}")
+    private long queueTimeoutMillis;
+    
+    private final Map<Long, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Map<Long, TrainGate> trainGates = new ConcurrentHashMap<>();
+    
+    public Permit admit(Long userId, Long trainId, Long trainClassId, Date journeyDate, int seats) {
+        InventoryKey key = InventoryKey.of(trainClassId, journeyDate);
+        if (waitlist.isFull(key) && (waitlist.hasWaiting(key) || seatInventory.isSoldOut(key, seats))) {
+            throw new SoldOutException("Not enough seats available");
+        }
+        return admitHeld(userId, trainId);
+    }
+    
+    // For bookings whose seats are already held, where a sold-out class is expected
+    public Permit admitHeld(Long userId, Long trainId) {
+        long now = System.nanoTime();
+        TokenBucket bucket = userBuckets.computeIfAbsent(userId, id -> new TokenBucket(userRatePerSecond, userBurst, now));
+        if (!bucket.tryAcquire(now)) {
+            throw new AdmissionRejectedException("Too many booking requests, please retry shortly");
+        }
+        
+        TrainGate gate = trainGates.computeIfAbsent(trainId, id -> new TrainGate(trainConcurrency));
+        if (gate.isBusy()) {
+            bookingMetrics.contention(trainId);
+        }
+        if (!gate.enter(trainQueueLength, queueTimeoutMillis)) {
+            throw new AdmissionRejectedException("Booking queue for this train is full, please retry shortly");
+        }
+        return gate::leave;
+    }
+    
+    // Buckets that have refilled completely carry no state worth keeping
+    @Scheduled(fixedDelayString = "${booking.admission.cleanup-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        userBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+    
+    // Released in a finally block once the booking attempt is over
+    public interface Permit {
+        
+        void release();
+    }
+    
+    private static class TrainGate {
+        
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        
+        TrainGate(int concurrency) {
+            this.permits = new Semaphore(concurrency, true);
+        }
+        
+        boolean enter(int queueLength, long timeoutMillis) {
+            if (waiting.incrementAndGet() > queueLength) {
+                waiting.decrementAndGet();
+                return false;
+            }
+            // The timed acquire queues behind earlier waiters; the untimed tryAcquire() would barge
+            try {
+                return permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        
+        // Every permit is taken, so the next caller queues
+        boolean isBusy() {
+            return permits.availablePermits() == 0;
+        }
+        
+        void leave() {
+            permits.release();
+        }
+    }
+}
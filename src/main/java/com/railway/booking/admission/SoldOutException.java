@@ -0,0 +1,15 @@
+
+package com.railway.booking.admission;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SoldOutException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public SoldOutException(String message) {
+        super(message);
+    }
+}
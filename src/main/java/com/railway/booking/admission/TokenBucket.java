@@ -0,0 +1,36 @@
+
+package com.railway.booking.admission;
+
+/**
+ * Classic token bucket: holds up to {@code burst} tokens and refills at {@code ratePerSecond}.
+ * Tokens are tracked in nanoseconds of refill time so there is no floating-point drift.
+ */
+class TokenBucket {
+    
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    // Timestamp at which the bucket would be empty; tokens = (now - emptyAt) / nanosPerToken
+    private long emptyAt;
+    
+    TokenBucket(double ratePerSecond, int burst, long now) {
+        this.nanosPerToken = (long) (1_000_000_000L / ratePerSecond);
+        this.capacityNanos = nanosPerToken * burst;
+        this.emptyAt = now - capacityNanos;
+    }
+    
+    synchronized boolean tryAcquire(long now) {
+        long floor = now - capacityNanos;
+        if (emptyAt < floor) {
+            emptyAt = floor;
+        }
+        if (now - emptyAt < nanosPerToken) {
+            return false;
+        }
+        emptyAt += nanosPerToken;
+        return true;
+    }
+    
+    synchronized boolean isFull(long now) {
+        return now - emptyAt >= capacityNanos;
+    }
+}
@@ -0,0 +1,56 @@
+
+package com.railway.booking.cache;
+
+import com.railway.booking.dto.TrainView;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One immutable version of the train catalog together with its JSON body, serialized once
+ * when the snapshot is built. The ETag is a hash of that body, so every node serving the
+ * same catalog hands out the same tag.
+ */
+public final class CatalogSnapshot {
+    
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, Collections.emptyList(), "[]".getBytes(StandardCharsets.UTF_8), "\"empty\"");
+    
+    private final long version;
+    private final Map<Long, TrainView> trains;
+    private final byte[] body;
+    private final String etag;
+    
+    CatalogSnapshot(long version, List<TrainView> trains, byte[] body, String etag) {
+        Map<Long, TrainView> byId = new LinkedHashMap<>();
+        trains.forEach(train -> byId.put(train.getId(), train));
+        this.version = version;
+        this.trains = Collections.unmodifiableMap(byId);
+        this.body = body;
+        this.etag = etag;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public Collection<TrainView> getTrains() {
+        return trains.values();
+    }
+    
+    public TrainView getTrain(Long id) {
+        return trains.get(id);
+    }
+    
+    // Shared, not copied: callers write it out and must not change it
+    public byte[] getBody() {
+        return body;
+    }
+    
+    public String getEtag() {
+        return etag;
+    }
+}
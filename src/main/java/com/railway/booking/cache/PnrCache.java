@@ -0,0 +1,61 @@
+
+package com.railway.booking.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.railway.booking.dto.BookingView;
+import com.railway.booking.util.TransactionCallbacks;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for PNR status lookups, bounded by size and TTL. Hit, miss and
+ * eviction counts are published as the "pnr" cache under /actuator/metrics/cache.*.
+ */
+@Component
+public class PnrCache {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${booking.pnr-cache.maximum-size:100000}")
+    private long maximumSize;
+    
+    @Value("${booking.pnr-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    private Cache<String, BookingView> cache;
+    
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "pnr");
+    }
+    
+    /**
+     * Returns the cached booking or loads it; a {@code null} from the loader is not cached.
+     */
+    public BookingView get(String pnr, Supplier<BookingView> loader) {
+        return cache.get(pnr, key -> loader.get());
+    }
+    
+    /**
+     * Drops the entry now and again once the surrounding transaction commits, so a read
+     * racing with the write cannot leave the pre-commit state cached.
+     */
+    public void invalidate(String pnr) {
+        cache.invalidate(pnr);
+        TransactionCallbacks.afterCommit(() -> cache.invalidate(pnr));
+    }
+}
@@ -0,0 +1,63 @@
+
+package com.railway.booking.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.railway.booking.dto.TrainView;
+import com.railway.booking.event.TrainScheduleChangedEvent;
+import com.railway.booking.model.Train;
+import com.railway.booking.repository.TrainRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The train catalog - trains with their classes, stops and stations - held as a
+ * {@link CatalogSnapshot} that readers take with one volatile read, never locking or going
+ * to the database. Schedule changes on this node rebuild it straight away; the periodic
+ * refresh picks up changes made through other nodes. A rebuild that comes out identical
+ * keeps the current snapshot, so its version and ETag only move when the catalog does.
+ */
+@Component
+public class TrainCatalog {
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+    
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    @EventListener({ApplicationReadyEvent.class, TrainScheduleChangedEvent.class})
+    @Scheduled(fixedDelayString = "${booking.catalog.refresh-interval-ms:60000}",
+            initialDelayString = "${booking.catalog.refresh-interval-ms:60000}")
+    public synchronized void rebuild() {
+        List<TrainView> trains = trainRepository.findAllWithSchedule().stream()
+                .sorted(Comparator.comparing(Train::getId))
+                .map(TrainView::from)
+                .collect(Collectors.toList());
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(trains);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Cannot serialize the train catalog", e);
+        }
+        CatalogSnapshot current = snapshot;
+        if (!Arrays.equals(body, current.getBody())) {
+            snapshot = new CatalogSnapshot(current.getVersion() + 1, trains, body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        }
+    }
+}
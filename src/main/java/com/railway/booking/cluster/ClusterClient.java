@@ -0,0 +1,137 @@
+
+package com.railway.booking.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Node-to-node HTTP calls. Every call carries {@link #FORWARDED_BY} so the receiving node
+ * serves it itself instead of routing it on again, and {@link #SECRET} so it can tell a
+ * peer from a client that merely sets that header.
+ */
+@Component
+public class ClusterClient {
+    
+    public static final String FORWARDED_BY = "X-Booking-Forwarded-By";
+    public static final String SECRET = "X-Booking-Cluster-Secret";
+    
+    private static final Logger log = LoggerFactory.getLogger(ClusterClient.class);
+    
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+    
+    @Autowired
+    private ClusterMembership membership;
+    
+    @Value("${booking.cluster.forward-timeout-ms:10000}")
+    private long timeoutMillis;
+    
+    @Value("${booking.cluster.secret:}")
+    private String secret;
+    
+    private RestTemplate restTemplate;
+    
+    @PostConstruct
+    public void init() {
+        if (membership.isEnabled() && secret.isBlank()) {
+            throw new IllegalStateException("booking.cluster.secret must be set when booking.cluster.nodes is set");
+        }
+        // Error statuses from the owner are relayed to the caller as they are
+        restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(timeoutMillis))
+                .setReadTimeout(Duration.ofMillis(timeoutMillis))
+                .errorHandler(new DefaultResponseErrorHandler() {
+                    @Override
+                    public boolean hasError(ClientHttpResponse response) {
+                        return false;
+                    }
+                })
+                .build();
+    }
+    
+    /**
+     * True if the presented secret matches this node's. Without a configured secret nothing
+     * matches, so a single node never accepts membership changes.
+     */
+    public boolean isTrusted(String presented) {
+        return !secret.isBlank() && presented != null
+                && MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public boolean isPeer(String forwardedBy, String presented) {
+        return forwardedBy != null && isTrusted(presented);
+    }
+    
+    /**
+     * Sends the request to the node, throwing {@link ShardUnavailableException} if it cannot
+     * be reached.
+     */
+    public ResponseEntity<byte[]> exchange(String nodeId, HttpMethod method, String pathAndQuery, byte[] body) {
+        String url = membership.getRing().url(nodeId);
+        if (url == null) {
+            throw new ShardUnavailableException("Node " + nodeId + " is not a cluster member");
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(FORWARDED_BY, membership.getSelf());
+        headers.set(SECRET, secret);
+        if (body != null) {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+        try {
+            return restTemplate.exchange(URI.create(url + pathAndQuery), method, new HttpEntity<>(body, headers), byte[].class);
+        } catch (RestClientException e) {
+            throw new ShardUnavailableException("Node " + nodeId + " is unreachable: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Pushes a membership version to every node in either ring except this one and reports
+     * what each of them did with it.
+     */
+    public Map<String, String> announce(Ring previous, Ring current) {
+        Map<String, String> urls = new LinkedHashMap<>(previous.getNodes());
+        urls.putAll(current.getNodes());
+        urls.remove(membership.getSelf());
+        
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("version", current.getVersion());
+        body.put("nodes", current.getNodes());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(FORWARDED_BY, membership.getSelf());
+        headers.set(SECRET, secret);
+        
+        Map<String, String> outcomes = new LinkedHashMap<>();
+        for (Map.Entry<String, String> node : urls.entrySet()) {
+            try {
+                ResponseEntity<Void> response = restTemplate.exchange(URI.create(node.getValue() + "/api/cluster/nodes"),
+                        HttpMethod.PUT, new HttpEntity<>(body, headers), Void.class);
+                outcomes.put(node.getKey(), response.getStatusCode().is2xxSuccessful() ? "applied" : "rejected: " + response.getStatusCodeValue());
+            } catch (RestClientException e) {
+                log.warn("Could not announce membership version {} to node {}: {}", current.getVersion(), node.getKey(), e.getMessage());
+                outcomes.put(node.getKey(), "unreachable");
+            }
+        }
+        return outcomes;
+    }
+}
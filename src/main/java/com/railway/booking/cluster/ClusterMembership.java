@@ -0,0 +1,118 @@
+
+package com.railway.booking.cluster;
+
+import com.railway.booking.event.MembershipChangedEvent;
+import com.railway.booking.inventory.InventoryKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+
+/**
+ * Which node owns the seat inventory of each (train class, journey date). Only the owner
+ * allocates and releases seats for a key; other nodes route those requests to it. Membership
+ * starts from {@code booking.cluster.nodes} and changes through PUT /api/cluster/nodes. With
+ * no nodes configured this node owns every key and none of the checks cost anything.
+ *
+ * A node that gains keys waits {@code handoff-ms} before touching them, so bookings the
+ * previous owner admitted just before the change have committed by the time it loads the
+ * layout from the database.
+ */
+@Component
+public class ClusterMembership {
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${booking.cluster.self:}")
+    private String self;
+    
+    @Value("${booking.cluster.nodes:}")
+    private String nodes;
+    
+    @Value("${booking.cluster.handoff-ms:5000}")
+    private long handoffMillis;
+    
+    private volatile Ring ring = Ring.empty();
+    private volatile Ring previous = Ring.empty();
+    private volatile long handoffEndsAt;
+    
+    @PostConstruct
+    public void init() {
+        Ring configured = Ring.parse(0, nodes);
+        if (!configured.isEmpty() && !configured.contains(self)) {
+            throw new IllegalStateException("booking.cluster.self must name one of booking.cluster.nodes");
+        }
+        // A starting node may be taking keys over from nodes that are still running
+        ring = configured;
+        handoffEndsAt = configured.isEmpty() ? 0 : System.currentTimeMillis() + handoffMillis;
+    }
+    
+    public boolean isEnabled() {
+        return !ring.isEmpty();
+    }
+    
+    public String getSelf() {
+        return self;
+    }
+    
+    public Ring getRing() {
+        return ring;
+    }
+    
+    public String owner(InventoryKey key) {
+        return ring.owner(key);
+    }
+    
+    public boolean owns(InventoryKey key) {
+        Ring current = ring;
+        return current.isEmpty() || self.equals(current.owner(key));
+    }
+    
+    public boolean isHandingOver(InventoryKey key) {
+        return System.currentTimeMillis() < handoffEndsAt && !self.equals(previous.owner(key));
+    }
+    
+    public long getHandoffEndsAt() {
+        return handoffEndsAt;
+    }
+    
+    /**
+     * Throws unless this node may change the seats of the key right now.
+     */
+    public void checkOwner(InventoryKey key) {
+        Ring current = ring;
+        if (current.isEmpty()) {
+            return;
+        }
+        String owner = current.owner(key);
+        if (!self.equals(owner)) {
+            throw new ShardUnavailableException("Seat inventory " + key + " is owned by node " + owner);
+        }
+        if (isHandingOver(key)) {
+            throw new ShardUnavailableException("Seat inventory " + key + " is being handed over, retry shortly");
+        }
+    }
+    
+    /**
+     * Switches to the given membership unless this node already has the same or a newer
+     * version, and returns whether it did.
+     */
+    public boolean apply(long version, Map<String, String> members) {
+        MembershipChangedEvent event;
+        synchronized (this) {
+            if (version <= ring.getVersion()) {
+                return false;
+            }
+            event = new MembershipChangedEvent(ring, new Ring(version, members));
+            previous = event.getPrevious();
+            ring = event.getCurrent();
+            handoffEndsAt = System.currentTimeMillis() + handoffMillis;
+        }
+        eventPublisher.publishEvent(event);
+        return true;
+    }
+}
@@ -0,0 +1,119 @@
+
+package com.railway.booking.cluster;
+
+import com.railway.booking.inventory.InventoryKey;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One version of the cluster membership. Each inventory key belongs to the node with the
+ * highest hash of (node, key) - rendezvous hashing - so adding or removing a node only moves
+ * the keys that node gains or gives up, and every node computes the same owner on its own.
+ */
+public final class Ring {
+    
+    private static final Ring EMPTY = new Ring(0, Collections.emptyMap());
+    
+    private final long version;
+    private final String[] ids;
+    private final String[] urls;
+    private final long[] seeds;
+    
+    public Ring(long version, Map<String, String> nodes) {
+        Map<String, String> sorted = new TreeMap<>(nodes);
+        this.version = version;
+        this.ids = sorted.keySet().toArray(new String[0]);
+        this.urls = new String[ids.length];
+        this.seeds = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            String url = sorted.get(ids[i]);
+            urls[i] = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+            seeds[i] = seed(ids[i]);
+        }
+    }
+    
+    public static Ring empty() {
+        return EMPTY;
+    }
+    
+    // "node-a=http://10.0.0.1:8080,node-b=http://10.0.0.2:8080"
+    public static Ring parse(long version, String spec) {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (String node : spec.split(",")) {
+            if (node.isBlank()) {
+                continue;
+            }
+            int eq = node.indexOf('=');
+            if (eq < 1) {
+                throw new IllegalArgumentException("Cluster node must be id=url: " + node);
+            }
+            nodes.put(node.substring(0, eq).trim(), node.substring(eq + 1).trim());
+        }
+        return new Ring(version, nodes);
+    }
+    
+    public String owner(InventoryKey key) {
+        if (ids.length == 0) {
+            return null;
+        }
+        long hash = mix(key.getTrainClassId() * 0x9E3779B97F4A7C15L ^ key.getJourneyDay());
+        int best = 0;
+        long bestScore = mix(seeds[0] ^ hash);
+        for (int i = 1; i < ids.length; i++) {
+            long score = mix(seeds[i] ^ hash);
+            if (Long.compareUnsigned(score, bestScore) > 0) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return ids[best];
+    }
+    
+    public String url(String id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i].equals(id)) {
+                return urls[i];
+            }
+        }
+        return null;
+    }
+    
+    public boolean contains(String id) {
+        return url(id) != null;
+    }
+    
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public Map<String, String> getNodes() {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            nodes.put(ids[i], urls[i]);
+        }
+        return nodes;
+    }
+    
+    // FNV-1a over the id, so the seed does not depend on String.hashCode's 32 bits
+    private static long seed(String id) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash = (hash ^ id.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+    
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,231 @@
+
+package com.railway.booking.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.railway.booking.dto.BulkBookingResult;
+import com.railway.booking.hold.SeatHoldManager;
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.repository.BookingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends requests that change seats to the node owning the (train class, journey date) they
+ * touch: new bookings and holds by their body, hold lookups by the key in the hold id, and
+ * cancellations by the booking's key. Bulk batches spanning several owners are split, sent
+ * to each, and their results merged back in request order. Everything else, including all
+ * reads, is served by whichever node received it.
+ */
+@Component
+public class ShardRoutingFilter extends OncePerRequestFilter {
+    
+    @Autowired
+    private ClusterMembership membership;
+    
+    @Autowired
+    private ClusterClient clusterClient;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !membership.isEnabled()
+                || clusterClient.isPeer(request.getHeader(ClusterClient.FORWARDED_BY), request.getHeader(ClusterClient.SECRET))
+                || !(path.startsWith("/api/bookings") || path.startsWith("/api/holds"));
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        byte[] body = "POST".equals(method) ? StreamUtils.copyToByteArray(request.getInputStream()) : null;
+        HttpServletRequest replay = body != null ? new CachedBodyRequest(request, body) : request;
+        
+        try {
+            if ("/api/bookings/bulk".equals(path) && body != null) {
+                if (routeBulk(response, body)) {
+                    return;
+                }
+            } else {
+                InventoryKey key = route(method, path, body);
+                if (key != null && !membership.owns(key)) {
+                    String query = request.getQueryString();
+                    write(response, clusterClient.exchange(membership.owner(key), HttpMethod.resolve(method),
+                            query != null ? path + "?" + query : path, body));
+                    return;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // Let the controller turn a malformed body into its usual error
+        } catch (ShardUnavailableException e) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+            return;
+        }
+        chain.doFilter(replay, response);
+    }
+    
+    // The key a request touches, or null if it is served locally whoever owns the seats
+    private InventoryKey route(String method, String path, byte[] body) throws IOException {
+        String[] parts = path.split("/");
+        if ("/api/bookings".equals(path) && "POST".equals(method)) {
+            JsonNode request = objectMapper.readTree(body);
+            return request.hasNonNull("holdId") ? SeatHoldManager.keyOf(request.get("holdId").asText()) : keyOf(request);
+        }
+        if ("/api/holds".equals(path) && "POST".equals(method)) {
+            return keyOf(objectMapper.readTree(body));
+        }
+        if (parts.length == 4 && "holds".equals(parts[2])) {
+            return SeatHoldManager.keyOf(parts[3]);
+        }
+        if (parts.length == 4 && "bookings".equals(parts[2]) && "DELETE".equals(method) && parts[3].matches("\\d+")) {
+            List<Object[]> keys = bookingRepository.findInventoryKeyById(Long.valueOf(parts[3]));
+            return keys.isEmpty() ? null : InventoryKey.of((Long) keys.get(0)[0], (Date) keys.get(0)[1]);
+        }
+        return null;
+    }
+    
+    // False when every request in the batch belongs to this node
+    private boolean routeBulk(HttpServletResponse response, byte[] body) throws IOException {
+        List<JsonNode> requests = objectMapper.readValue(body, new TypeReference<List<JsonNode>>() {});
+        Map<String, List<Integer>> byOwner = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            InventoryKey key = keyOf(requests.get(i));
+            String owner = key != null ? membership.owner(key) : membership.getSelf();
+            byOwner.computeIfAbsent(owner, o -> new ArrayList<>()).add(i);
+        }
+        if (byOwner.size() <= 1 && (byOwner.isEmpty() || byOwner.containsKey(membership.getSelf()))) {
+            return false;
+        }
+        
+        // One sub-batch per owner, this node's own included, each keeping its original indexes
+        BulkBookingResult[] results = new BulkBookingResult[requests.size()];
+        for (Map.Entry<String, List<Integer>> owner : byOwner.entrySet()) {
+            List<Integer> indexes = owner.getValue();
+            List<JsonNode> batch = new ArrayList<>(indexes.size());
+            for (int index : indexes) {
+                batch.add(requests.get(index));
+            }
+            try {
+                ResponseEntity<byte[]> sent = clusterClient.exchange(owner.getKey(), HttpMethod.POST, "/api/bookings/bulk",
+                        objectMapper.writeValueAsBytes(batch));
+                List<JsonNode> outcomes = sent.getStatusCode().is2xxSuccessful() && sent.getBody() != null
+                        ? objectMapper.readValue(sent.getBody(), new TypeReference<List<JsonNode>>() {})
+                        : new ArrayList<>();
+                for (JsonNode outcome : outcomes) {
+                    int index = indexes.get(outcome.get("index").asInt());
+                    results[index] = outcome.path("success").asBoolean()
+                            ? BulkBookingResult.booked(index, outcome.get("bookingId").asLong(), outcome.get("pnr").asText())
+                            : BulkBookingResult.failed(index, outcome.path("error").asText(null));
+                }
+            } catch (ShardUnavailableException e) {
+                for (int index : indexes) {
+                    results[index] = BulkBookingResult.failed(index, e.getMessage());
+                }
+            }
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = BulkBookingResult.failed(i, "No result from the owning node");
+            }
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), results);
+        return true;
+    }
+    
+    private static InventoryKey keyOf(JsonNode request) {
+        if (!request.hasNonNull("trainClassId") || !request.hasNonNull("journeyDate")) {
+            return null;
+        }
+        return InventoryKey.of(request.get("trainClassId").asLong(), new Date(request.get("journeyDate").asLong()));
+    }
+    
+    private static void write(HttpServletResponse response, ResponseEntity<byte[]> forwarded) throws IOException {
+        response.setStatus(forwarded.getStatusCodeValue());
+        if (forwarded.getHeaders().getContentType() != null) {
+            response.setContentType(forwarded.getHeaders().getContentType().toString());
+        }
+        if (forwarded.getBody() != null) {
+            response.getOutputStream().write(forwarded.getBody());
+        }
+    }
+    
+    // The body has already been read to find the key, so the controller reads this copy
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        
+        private final byte[] body;
+        
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+                
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+                
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+                
+                @Override
+                public int read() {
+                    return in.read();
+                }
+                
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+            };
+        }
+        
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
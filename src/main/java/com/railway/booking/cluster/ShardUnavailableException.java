@@ -0,0 +1,15 @@
+
+package com.railway.booking.cluster;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ShardUnavailableException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public ShardUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,50 @@
+
+package com.railway.booking.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@code booking.execution.mode=virtual} runs Tomcat request handling and async MVC work
+ * on virtual threads. Database concurrency stays bounded by the Hikari pool, whose
+ * {@code connection-timeout} is how long a request waits for a connection.
+ * The project still compiles for Java 11, so the virtual-thread executor is looked up
+ * reflectively and this mode needs a Java 21 runtime. The default ({@code platform})
+ * keeps Tomcat's thread-per-request pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "booking.execution.mode", havingValue = "virtual")
+public class ExecutionModeConfig {
+    
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("booking.execution.mode=virtual requires a Java 21 or newer runtime", e);
+        }
+    }
+    
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+    
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncSupport(ExecutorService virtualThreadExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(new ConcurrentTaskExecutor(virtualThreadExecutor));
+            }
+        };
+    }
+}
@@ -1,12 +1,25 @@
 
 package com.railway.booking.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.railway.booking.admission.BookingAdmission;
+import com.railway.booking.dto.BookingPage;
+import com.railway.booking.dto.BookingRequest;
+import com.railway.booking.dto.BookingView;
+import com.railway.booking.dto.BulkBookingResult;
+import com.railway.booking.hold.SeatHold;
+import com.railway.booking.hold.SeatHoldManager;
 import com.railway.booking.model.Booking;
 import com.railway.booking.model.Passenger;
 import com.railway.booking.service.BookingService;
+import com.railway.booking.service.BulkBookingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Date;
 import java.util.List;
@@ -19,37 +32,92 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
     
+    @Autowired
+    private BulkBookingService bulkBookingService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private BookingAdmission bookingAdmission;
+    
+    @Autowired
+    private SeatHoldManager seatHoldManager;
+    
     @PostMapping
-    public ResponseEntity<Booking> createBooking(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<BookingView> createBooking(@RequestBody Map<String, Object> request) {
         Long userId = Long.valueOf(request.get("userId").toString());
+        List<Passenger> passengers = objectMapper.convertValue(request.get("passengers"), new TypeReference<List<Passenger>>() {});
+        int seats = passengers != null ? passengers.size() : 0;
+        
+        // Seats picked earlier through /api/holds
+        if (request.get("holdId") != null) {
+            String holdId = request.get("holdId").toString();
+            SeatHold hold = seatHoldManager.getHold(holdId);
+            BookingAdmission.Permit permit = bookingAdmission.admitHeld(userId, hold.getTrainId());
+            try {
+                return ResponseEntity.ok(BookingView.from(bookingService.createBookingFromHold(userId, holdId, passengers)));
+            } finally {
+                permit.release();
+            }
+        }
+        
         Long trainId = Long.valueOf(request.get("trainId").toString());
         Long trainClassId = Long.valueOf(request.get("trainClassId").toString());
         Date journeyDate = new Date(Long.valueOf(request.get("journeyDate").toString()));
-        List<Passenger> passengers = (List<Passenger>) request.get("passengers");
+        Long fromStationId = request.get("fromStationId") != null ? Long.valueOf(request.get("fromStationId").toString()) : null;
+        Long toStationId = request.get("toStationId") != null ? Long.valueOf(request.get("toStationId").toString()) : null;
         
-        Booking booking = bookingService.createBooking(userId, trainId, trainClassId, journeyDate, passengers);
-        return ResponseEntity.ok(booking);
+        BookingAdmission.Permit permit = bookingAdmission.admit(userId, trainId, trainClassId, journeyDate, seats);
+        try {
+            Booking booking = bookingService.createBooking(userId, trainId, trainClassId, journeyDate, fromStationId, toStationId, passengers);
+            return ResponseEntity.ok(BookingView.from(booking));
+        } finally {
+            permit.release();
+        }
+    }
+    
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BulkBookingResult>> createBookings(@RequestBody List<BookingRequest> requests) {
+        return ResponseEntity.ok(bulkBookingService.createBookings(requests));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Booking> getBookingById(@PathVariable Long id) {
-        return ResponseEntity.ok(bookingService.getBookingById(id));
+    public ResponseEntity<BookingView> getBookingById(@PathVariable Long id) {
+        return ResponseEntity.ok(BookingView.from(bookingService.getBookingById(id)));
     }
     
     @GetMapping("/pnr/{pnr}")
-    public ResponseEntity<Booking> getBookingByPnr(@PathVariable String pnr) {
+    public ResponseEntity<BookingView> getBookingByPnr(@PathVariable String pnr) {
         return ResponseEntity.ok(bookingService.getBookingByPnr(pnr));
     }
     
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Booking>> getBookingsByUser(@PathVariable Long userId) {
+    public ResponseEntity<List<BookingView>> getBookingsByUser(@PathVariable Long userId) {
         return ResponseEntity.ok(bookingService.getBookingsByUser(userId));
     }
     
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<BookingPage> getBookingPage(
+            @PathVariable Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date afterDate,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") Integer size) {
+        return ResponseEntity.ok(bookingService.getBookingPage(userId, afterDate, afterId, Math.min(size, 500)));
+    }
+    
+    @GetMapping("/user/{userId}/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(@PathVariable Long userId) {
+        StreamingResponseBody body = out -> bookingService.exportBookings(userId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+    
     @PutMapping("/{id}/status")
-    public ResponseEntity<Booking> updateBookingStatus(@PathVariable Long id, @RequestBody Map<String, String> request) {
+    public ResponseEntity<BookingView> updateBookingStatus(@PathVariable Long id, @RequestBody Map<String, String> request) {
         String status = request.get("status");
-        return ResponseEntity.ok(bookingService.updateBookingStatus(id, status));
+        return ResponseEntity.ok(BookingView.from(bookingService.updateBookingStatus(id, status)));
     }
     
     @DeleteMapping("/{id}")
@@ -0,0 +1,80 @@
+
+package com.railway.booking.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.railway.booking.cluster.ClusterClient;
+import com.railway.booking.cluster.ClusterMembership;
+import com.railway.booking.cluster.Ring;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cluster")
+public class ClusterController {
+    
+    @Autowired
+    private ClusterMembership clusterMembership;
+    
+    @Autowired
+    private ClusterClient clusterClient;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getMembership() {
+        return ResponseEntity.ok(view(clusterMembership.getRing()));
+    }
+    
+    // Send a membership change to any one node, with the cluster secret; it bumps the version and passes it on to the others
+    @PutMapping("/nodes")
+    public ResponseEntity<Map<String, Object>> updateNodes(
+            @RequestBody Map<String, Object> request,
+            @RequestHeader(value = ClusterClient.FORWARDED_BY, required = false) String forwardedBy,
+            @RequestHeader(value = ClusterClient.SECRET, required = false) String secret) {
+        // Nodes named here receive forwarded booking requests, so only holders of the secret may name them
+        if (!clusterClient.isTrusted(secret)) {
+            return error(HttpStatus.FORBIDDEN, "Membership changes need the cluster secret");
+        }
+        Map<String, String> nodes = objectMapper.convertValue(request.get("nodes"), new TypeReference<Map<String, String>>() {});
+        if (nodes == null) {
+            return error(HttpStatus.BAD_REQUEST, "nodes is required");
+        }
+        if (forwardedBy != null) {
+            if (!(request.get("version") instanceof Number)) {
+                return error(HttpStatus.BAD_REQUEST, "version is required");
+            }
+            long version = ((Number) request.get("version")).longValue();
+            boolean applied = clusterMembership.apply(version, nodes);
+            return ResponseEntity.status(applied ? HttpStatus.OK : HttpStatus.CONFLICT).body(view(clusterMembership.getRing()));
+        }
+        
+        Ring previous = clusterMembership.getRing();
+        if (!clusterMembership.apply(previous.getVersion() + 1, nodes)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(view(clusterMembership.getRing()));
+        }
+        Map<String, Object> response = view(clusterMembership.getRing());
+        response.put("announced", clusterClient.announce(previous, clusterMembership.getRing()));
+        return ResponseEntity.ok(response);
+    }
+    
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return ResponseEntity.status(status).body(body);
+    }
+    
+    private Map<String, Object> view(Ring ring) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("self", clusterMembership.getSelf());
+        view.put("version", ring.getVersion());
+        view.put("nodes", ring.getNodes());
+        return view;
+    }
+}
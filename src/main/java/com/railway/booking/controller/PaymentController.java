@@ -0,0 +1,37 @@
+
+package com.railway.booking.controller;
+
+import com.railway.booking.model.Payment;
+import com.railway.booking.service.PaymentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/payments")
+public class PaymentController {
+    
+    @Autowired
+    private PaymentService paymentService;
+    
+    // Settlement is asynchronous: poll the payment or the booking's PNR for the outcome
+    @PostMapping
+    public ResponseEntity<Payment> initiatePayment(@RequestBody Map<String, Object> request) {
+        Long bookingId = Long.valueOf(request.get("bookingId").toString());
+        String paymentMethod = request.get("paymentMethod").toString();
+        String transactionId = request.get("transactionId") != null ? request.get("transactionId").toString() : null;
+        return ResponseEntity.accepted().body(paymentService.initiatePayment(bookingId, paymentMethod, transactionId));
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<Payment> getPaymentById(@PathVariable Long id) {
+        return ResponseEntity.ok(paymentService.getPaymentById(id));
+    }
+    
+    @GetMapping("/transaction/{transactionId}")
+    public ResponseEntity<Payment> getPaymentByTransactionId(@PathVariable String transactionId) {
+        return ResponseEntity.ok(paymentService.getPaymentByTransactionId(transactionId));
+    }
+}
@@ -0,0 +1,43 @@
+
+package com.railway.booking.controller;
+
+import com.railway.booking.hold.SeatHold;
+import com.railway.booking.hold.SeatHoldManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Date;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/holds")
+public class SeatHoldController {
+    
+    @Autowired
+    private SeatHoldManager seatHoldManager;
+    
+    // Book the held seats by passing the holdId to POST /api/bookings before the hold expires
+    @PostMapping
+    public ResponseEntity<SeatHold> createHold(@RequestBody Map<String, Object> request) {
+        Long userId = Long.valueOf(request.get("userId").toString());
+        Long trainId = Long.valueOf(request.get("trainId").toString());
+        Long trainClassId = Long.valueOf(request.get("trainClassId").toString());
+        Date journeyDate = new Date(Long.valueOf(request.get("journeyDate").toString()));
+        Long fromStationId = request.get("fromStationId") != null ? Long.valueOf(request.get("fromStationId").toString()) : null;
+        Long toStationId = request.get("toStationId") != null ? Long.valueOf(request.get("toStationId").toString()) : null;
+        int seats = Integer.parseInt(request.get("seats").toString());
+        return ResponseEntity.ok(seatHoldManager.hold(userId, trainId, trainClassId, journeyDate, fromStationId, toStationId, seats));
+    }
+    
+    @GetMapping("/{holdId}")
+    public ResponseEntity<SeatHold> getHold(@PathVariable String holdId) {
+        return ResponseEntity.ok(seatHoldManager.getHold(holdId));
+    }
+    
+    @DeleteMapping("/{holdId}")
+    public ResponseEntity<Void> releaseHold(@PathVariable String holdId, @RequestParam Long userId) {
+        seatHoldManager.release(holdId, userId);
+        return ResponseEntity.ok().build();
+    }
+}
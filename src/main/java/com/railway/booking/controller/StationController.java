@@ -0,0 +1,25 @@
+
+package com.railway.booking.controller;
+
+import com.railway.booking.dto.StationSuggestion;
+import com.railway.booking.service.StationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stations")
+public class StationController {
+    
+    @Autowired
+    private StationService stationService;
+    
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<StationSuggestion>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        return ResponseEntity.ok(stationService.autocomplete(q, limit));
+    }
+}
@@ -1,12 +1,20 @@
 
 package com.railway.booking.controller;
 
+import com.railway.booking.cache.CatalogSnapshot;
+import com.railway.booking.dto.Itinerary;
+import com.railway.booking.dto.TrainSearchResult;
+import com.railway.booking.dto.TrainView;
 import com.railway.booking.model.Train;
 import com.railway.booking.service.TrainService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Date;
 import java.util.List;
 
 @RestController
@@ -16,22 +24,38 @@ public class TrainController {
     @Autowired
     private TrainService trainService;
     
+    // The body was serialized when the catalog last changed; Spring answers a matching If-None-Match with 304
     @GetMapping
-    public ResponseEntity<List<Train>> getAllTrains() {
-        return ResponseEntity.ok(trainService.getAllTrains());
+    public ResponseEntity<byte[]> getAllTrains() {
+        CatalogSnapshot catalog = trainService.getCatalog();
+        return ResponseEntity.ok()
+                .eTag(catalog.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalog.getBody());
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Train> getTrainById(@PathVariable Long id) {
+    public ResponseEntity<TrainView> getTrainById(@PathVariable Long id) {
         return ResponseEntity.ok(trainService.getTrainById(id));
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<Train>> searchTrains(
+    public ResponseEntity<List<TrainSearchResult>> searchTrains(
             @RequestParam Long sourceId,
             @RequestParam Long destinationId,
-            @RequestParam(defaultValue = "1") Integer passengers) {
-        return ResponseEntity.ok(trainService.searchTrains(sourceId, destinationId, passengers));
+            @RequestParam(defaultValue = "1") Integer passengers,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date journeyDate) {
+        return ResponseEntity.ok(trainService.searchTrains(sourceId, destinationId, passengers, journeyDate));
+    }
+    
+    @GetMapping("/connections")
+    public ResponseEntity<List<Itinerary>> searchConnections(
+            @RequestParam Long sourceId,
+            @RequestParam Long destinationId,
+            @RequestParam(defaultValue = "00:00") String departAfter,
+            @RequestParam(defaultValue = "2") Integer maxTransfers) {
+        return ResponseEntity.ok(trainService.searchConnections(sourceId, destinationId, departAfter, maxTransfers));
     }
     
     @PostMapping
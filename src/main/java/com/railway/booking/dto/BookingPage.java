@@ -0,0 +1,34 @@
+
+package com.railway.booking.dto;
+
+import java.util.List;
+
+/**
+ * One page of a user's booking history. Pass {@code nextAfterDate}/{@code nextAfterId}
+ * back as {@code afterDate}/{@code afterId} to fetch the following page; both are null on
+ * the last page.
+ */
+public class BookingPage {
+    
+    private final List<BookingView> items;
+    private final String nextAfterDate;
+    private final Long nextAfterId;
+    
+    public BookingPage(List<BookingView> items, String nextAfterDate, Long nextAfterId) {
+        this.items = items;
+        this.nextAfterDate = nextAfterDate;
+        this.nextAfterId = nextAfterId;
+    }
+    
+    public List<BookingView> getItems() {
+        return items;
+    }
+    
+    public String getNextAfterDate() {
+        return nextAfterDate;
+    }
+    
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+}
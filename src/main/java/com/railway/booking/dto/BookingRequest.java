@@ -0,0 +1,74 @@
+
+package com.railway.booking.dto;
+
+import com.railway.booking.model.Passenger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookingRequest {
+    
+    private Long userId;
+    private Long trainId;
+    private Long trainClassId;
+    private Long journeyDate; // epoch millis, as accepted by POST /api/bookings
+    private Long fromStationId;
+    private Long toStationId;
+    private List<Passenger> passengers = new ArrayList<>();
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public Long getTrainId() {
+        return trainId;
+    }
+    
+    public void setTrainId(Long trainId) {
+        this.trainId = trainId;
+    }
+    
+    public Long getTrainClassId() {
+        return trainClassId;
+    }
+    
+    public void setTrainClassId(Long trainClassId) {
+        this.trainClassId = trainClassId;
+    }
+    
+    public Long getJourneyDate() {
+        return journeyDate;
+    }
+    
+    public void setJourneyDate(Long journeyDate) {
+        this.journeyDate = journeyDate;
+    }
+    
+    public Long getFromStationId() {
+        return fromStationId;
+    }
+    
+    public void setFromStationId(Long fromStationId) {
+        this.fromStationId = fromStationId;
+    }
+    
+    public Long getToStationId() {
+        return toStationId;
+    }
+    
+    public void setToStationId(Long toStationId) {
+        this.toStationId = toStationId;
+    }
+    
+    public List<Passenger> getPassengers() {
+        return passengers;
+    }
+    
+    public void setPassengers(List<Passenger> passengers) {
+        this.passengers = passengers;
+    }
+}
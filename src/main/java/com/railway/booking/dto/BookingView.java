@@ -0,0 +1,128 @@
+
+package com.railway.booking.dto;
+
+import com.railway.booking.model.Booking;
+import com.railway.booking.model.Station;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only booking response. Flattens the user, train, class and station references to
+ * the fields a client shows, so serialization never walks back into the entity graph.
+ */
+public class BookingView {
+    
+    private final Long id;
+    private final String pnr;
+    private final String status;
+    private final Date journeyDate;
+    private final BigDecimal totalFare;
+    private final Long userId;
+    private final Long trainId;
+    private final String trainNumber;
+    private final String trainName;
+    private final Long trainClassId;
+    private final String className;
+    private final String fromStationCode;
+    private final String toStationCode;
+    private final String paymentStatus;
+    private final List<PassengerView> passengers;
+    
+    public BookingView(Long id, String pnr, String status, Date journeyDate, BigDecimal totalFare, Long userId,
+                       Long trainId, String trainNumber, String trainName, Long trainClassId, String className,
+                       String fromStationCode, String toStationCode, String paymentStatus, List<PassengerView> passengers) {
+        this.id = id;
+        this.pnr = pnr;
+        this.status = status;
+        this.journeyDate = journeyDate;
+        this.totalFare = totalFare;
+        this.userId = userId;
+        this.trainId = trainId;
+        this.trainNumber = trainNumber;
+        this.trainName = trainName;
+        this.trainClassId = trainClassId;
+        this.className = className;
+        this.fromStationCode = fromStationCode;
+        this.toStationCode = toStationCode;
+        this.paymentStatus = paymentStatus;
+        this.passengers = passengers;
+    }
+    
+    public static BookingView from(Booking booking) {
+        Station from = booking.getFromStation() != null ? booking.getFromStation() : booking.getTrain().getSourceStation();
+        Station to = booking.getToStation() != null ? booking.getToStation() : booking.getTrain().getDestinationStation();
+        List<PassengerView> passengers = booking.getPassengers().stream()
+                .sorted(Comparator.comparing(p -> p.getId() != null ? p.getId() : Long.MAX_VALUE))
+                .map(PassengerView::from)
+                .collect(Collectors.toList());
+        return new BookingView(booking.getId(), booking.getPnr(), booking.getStatus(), booking.getJourneyDate(),
+                booking.getTotalFare(), booking.getUser().getId(), booking.getTrain().getId(),
+                booking.getTrain().getNumber(), booking.getTrain().getName(), booking.getTrainClass().getId(),
+                booking.getTrainClass().getClassName(), from.getCode(), to.getCode(),
+                booking.getPayment() != null ? booking.getPayment().getStatus() : null, passengers);
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getPnr() {
+        return pnr;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public Date getJourneyDate() {
+        return journeyDate;
+    }
+    
+    public BigDecimal getTotalFare() {
+        return totalFare;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Long getTrainId() {
+        return trainId;
+    }
+    
+    public String getTrainNumber() {
+        return trainNumber;
+    }
+    
+    public String getTrainName() {
+        return trainName;
+    }
+    
+    public Long getTrainClassId() {
+        return trainClassId;
+    }
+    
+    public String getClassName() {
+        return className;
+    }
+    
+    public String getFromStationCode() {
+        return fromStationCode;
+    }
+    
+    public String getToStationCode() {
+        return toStationCode;
+    }
+    
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+    
+    public List<PassengerView> getPassengers() {
+        return passengers;
+    }
+}
@@ -0,0 +1,47 @@
+
+package com.railway.booking.dto;
+
+public class BulkBookingResult {
+    
+    private final int index;
+    private final boolean success;
+    private final Long bookingId;
+    private final String pnr;
+    private final String error;
+    
+    private BulkBookingResult(int index, boolean success, Long bookingId, String pnr, String error) {
+        this.index = index;
+        this.success = success;
+        this.bookingId = bookingId;
+        this.pnr = pnr;
+        this.error = error;
+    }
+    
+    public static BulkBookingResult booked(int index, Long bookingId, String pnr) {
+        return new BulkBookingResult(index, true, bookingId, pnr, null);
+    }
+    
+    public static BulkBookingResult failed(int index, String error) {
+        return new BulkBookingResult(index, false, null, null, error);
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public Long getBookingId() {
+        return bookingId;
+    }
+    
+    public String getPnr() {
+        return pnr;
+    }
+    
+    public String getError() {
+        return error;
+    }
+}
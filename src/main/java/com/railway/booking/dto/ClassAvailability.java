@@ -0,0 +1,35 @@
+
+package com.railway.booking.dto;
+
+import java.math.BigDecimal;
+
+public class ClassAvailability {
+    
+    private final Long trainClassId;
+    private final String className;
+    private final int availableSeats;
+    private final BigDecimal fare;
+    
+    public ClassAvailability(Long trainClassId, String className, int availableSeats, BigDecimal fare) {
+        this.trainClassId = trainClassId;
+        this.className = className;
+        this.availableSeats = availableSeats;
+        this.fare = fare;
+    }
+    
+    public Long getTrainClassId() {
+        return trainClassId;
+    }
+    
+    public String getClassName() {
+        return className;
+    }
+    
+    public int getAvailableSeats() {
+        return availableSeats;
+    }
+    
+    public BigDecimal getFare() {
+        return fare;
+    }
+}
@@ -0,0 +1,29 @@
+
+package com.railway.booking.dto;
+
+import java.util.List;
+
+public class Itinerary {
+    
+    private final int transfers;
+    private final int durationMinutes;
+    private final List<ItineraryLeg> legs;
+    
+    public Itinerary(int transfers, int durationMinutes, List<ItineraryLeg> legs) {
+        this.transfers = transfers;
+        this.durationMinutes = durationMinutes;
+        this.legs = legs;
+    }
+    
+    public int getTransfers() {
+        return transfers;
+    }
+    
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+    
+    public List<ItineraryLeg> getLegs() {
+        return legs;
+    }
+}
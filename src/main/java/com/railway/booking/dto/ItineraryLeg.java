@@ -0,0 +1,39 @@
+
+package com.railway.booking.dto;
+
+public class ItineraryLeg {
+    
+    private final Long trainId;
+    private final Long fromStationId;
+    private final Long toStationId;
+    private final String departureTime;
+    private final String arrivalTime;
+    
+    public ItineraryLeg(Long trainId, Long fromStationId, Long toStationId, String departureTime, String arrivalTime) {
+        this.trainId = trainId;
+        this.fromStationId = fromStationId;
+        this.toStationId = toStationId;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+    }
+    
+    public Long getTrainId() {
+        return trainId;
+    }
+    
+    public Long getFromStationId() {
+        return fromStationId;
+    }
+    
+    public Long getToStationId() {
+        return toStationId;
+    }
+    
+    public String getDepartureTime() {
+        return departureTime;
+    }
+    
+    public String getArrivalTime() {
+        return arrivalTime;
+    }
+}
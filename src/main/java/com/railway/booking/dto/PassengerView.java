@@ -0,0 +1,46 @@
+
+package com.railway.booking.dto;
+
+import com.railway.booking.model.Passenger;
+
+public class PassengerView {
+    
+    private final Long id;
+    private final String name;
+    private final Integer age;
+    private final String gender;
+    private final String seatNumber;
+    
+    public PassengerView(Long id, String name, Integer age, String gender, String seatNumber) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.gender = gender;
+        this.seatNumber = seatNumber;
+    }
+    
+    public static PassengerView from(Passenger passenger) {
+        return new PassengerView(passenger.getId(), passenger.getName(), passenger.getAge(), passenger.getGender(),
+                passenger.getSeatNumber());
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public Integer getAge() {
+        return age;
+    }
+    
+    public String getGender() {
+        return gender;
+    }
+    
+    public String getSeatNumber() {
+        return seatNumber;
+    }
+}
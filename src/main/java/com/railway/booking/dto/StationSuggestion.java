@@ -0,0 +1,39 @@
+
+package com.railway.booking.dto;
+
+public class StationSuggestion {
+    
+    private final Long id;
+    private final String code;
+    private final String name;
+    private final String city;
+    private final String state;
+    
+    public StationSuggestion(Long id, String code, String name, String city, String state) {
+        this.id = id;
+        this.code = code;
+        this.name = name;
+        this.city = city;
+        this.state = state;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getCity() {
+        return city;
+    }
+    
+    public String getState() {
+        return state;
+    }
+}
@@ -0,0 +1,45 @@
+
+package com.railway.booking.dto;
+
+import com.railway.booking.model.Station;
+
+public class StationView {
+    
+    private final Long id;
+    private final String code;
+    private final String name;
+    private final String city;
+    private final String state;
+    
+    public StationView(Long id, String code, String name, String city, String state) {
+        this.id = id;
+        this.code = code;
+        this.name = name;
+        this.city = city;
+        this.state = state;
+    }
+    
+    public static StationView from(Station station) {
+        return new StationView(station.getId(), station.getCode(), station.getName(), station.getCity(), station.getState());
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getCity() {
+        return city;
+    }
+    
+    public String getState() {
+        return state;
+    }
+}
@@ -0,0 +1,41 @@
+
+package com.railway.booking.dto;
+
+import com.railway.booking.model.TrainClass;
+
+import java.math.BigDecimal;
+
+public class TrainClassView {
+    
+    private final Long id;
+    private final String className;
+    private final Integer totalSeats;
+    private final BigDecimal fare;
+    
+    public TrainClassView(Long id, String className, Integer totalSeats, BigDecimal fare) {
+        this.id = id;
+        this.className = className;
+        this.totalSeats = totalSeats;
+        this.fare = fare;
+    }
+    
+    public static TrainClassView from(TrainClass trainClass) {
+        return new TrainClassView(trainClass.getId(), trainClass.getClassName(), trainClass.getTotalSeats(), trainClass.getFare());
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getClassName() {
+        return className;
+    }
+    
+    public Integer getTotalSeats() {
+        return totalSeats;
+    }
+    
+    public BigDecimal getFare() {
+        return fare;
+    }
+}
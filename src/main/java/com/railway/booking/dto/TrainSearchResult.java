@@ -0,0 +1,60 @@
+
+package com.railway.booking.dto;
+
+import java.util.List;
+
+public class TrainSearchResult {
+    
+    private final Long trainId;
+    private final String number;
+    private final String name;
+    private final Long fromStationId;
+    private final Long toStationId;
+    private final String departureTime;
+    private final String arrivalTime;
+    private final List<ClassAvailability> classes;
+    
+    public TrainSearchResult(Long trainId, String number, String name, Long fromStationId, Long toStationId,
+                             String departureTime, String arrivalTime, List<ClassAvailability> classes) {
+        this.trainId = trainId;
+        this.number = number;
+        this.name = name;
+        this.fromStationId = fromStationId;
+        this.toStationId = toStationId;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.classes = classes;
+    }
+    
+    public Long getTrainId() {
+        return trainId;
+    }
+    
+    public String getNumber() {
+        return number;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public Long getFromStationId() {
+        return fromStationId;
+    }
+    
+    public Long getToStationId() {
+        return toStationId;
+    }
+    
+    public String getDepartureTime() {
+        return departureTime;
+    }
+    
+    public String getArrivalTime() {
+        return arrivalTime;
+    }
+    
+    public List<ClassAvailability> getClasses() {
+        return classes;
+    }
+}
@@ -0,0 +1,53 @@
+
+package com.railway.booking.dto;
+
+import com.railway.booking.model.TrainStop;
+
+public class TrainStopView {
+    
+    private final Long id;
+    private final StationView station;
+    private final Integer stopSequence;
+    private final String arrivalTime;
+    private final String departureTime;
+    private final Integer distanceKm;
+    
+    public TrainStopView(Long id, StationView station, Integer stopSequence, String arrivalTime, String departureTime,
+                         Integer distanceKm) {
+        this.id = id;
+        this.station = station;
+        this.stopSequence = stopSequence;
+        this.arrivalTime = arrivalTime;
+        this.departureTime = departureTime;
+        this.distanceKm = distanceKm;
+    }
+    
+    public static TrainStopView from(TrainStop stop) {
+        return new TrainStopView(stop.getId(), StationView.from(stop.getStation()), stop.getStopSequence(),
+                stop.getArrivalTime(), stop.getDepartureTime(), stop.getDistanceKm());
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public StationView getStation() {
+        return station;
+    }
+    
+    public Integer getStopSequence() {
+        return stopSequence;
+    }
+    
+    public String getArrivalTime() {
+        return arrivalTime;
+    }
+    
+    public String getDepartureTime() {
+        return departureTime;
+    }
+    
+    public Integer getDistanceKm() {
+        return distanceKm;
+    }
+}
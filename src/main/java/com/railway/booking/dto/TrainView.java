@@ -0,0 +1,97 @@
+
+package com.railway.booking.dto;
+
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Timetable view of a train for the catalog: its classes, stops and stations, but none of
+ * the seat counts, which change with every booking. Per-date availability comes from
+ * GET /api/trains/search.
+ */
+public class TrainView {
+    
+    private final Long id;
+    private final String number;
+    private final String name;
+    private final StationView sourceStation;
+    private final StationView destinationStation;
+    private final String departureTime;
+    private final String arrivalTime;
+    private final Integer totalSeats;
+    private final List<TrainClassView> trainClasses;
+    private final List<TrainStopView> stops;
+    
+    public TrainView(Long id, String number, String name, StationView sourceStation, StationView destinationStation,
+                     String departureTime, String arrivalTime, Integer totalSeats, List<TrainClassView> trainClasses,
+                     List<TrainStopView> stops) {
+        this.id = id;
+        this.number = number;
+        this.name = name;
+        this.sourceStation = sourceStation;
+        this.destinationStation = destinationStation;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.totalSeats = totalSeats;
+        this.trainClasses = trainClasses;
+        this.stops = stops;
+    }
+    
+    public static TrainView from(Train train) {
+        // Classes come out of a HashSet; order them so identical catalogs serialize identically
+        List<TrainClassView> trainClasses = train.getTrainClasses().stream()
+                .sorted(Comparator.comparing(TrainClass::getId))
+                .map(TrainClassView::from)
+                .collect(Collectors.toUnmodifiableList());
+        List<TrainStopView> stops = train.getStops().stream()
+                .map(TrainStopView::from)
+                .collect(Collectors.toUnmodifiableList());
+        return new TrainView(train.getId(), train.getNumber(), train.getName(), StationView.from(train.getSourceStation()),
+                StationView.from(train.getDestinationStation()), train.getDepartureTime(), train.getArrivalTime(),
+                train.getTotalSeats(), trainClasses, stops);
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getNumber() {
+        return number;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public StationView getSourceStation() {
+        return sourceStation;
+    }
+    
+    public StationView getDestinationStation() {
+        return destinationStation;
+    }
+    
+    public String getDepartureTime() {
+        return departureTime;
+    }
+    
+    public String getArrivalTime() {
+        return arrivalTime;
+    }
+    
+    public Integer getTotalSeats() {
+        return totalSeats;
+    }
+    
+    public List<TrainClassView> getTrainClasses() {
+        return trainClasses;
+    }
+    
+    public List<TrainStopView> getStops() {
+        return stops;
+    }
+}
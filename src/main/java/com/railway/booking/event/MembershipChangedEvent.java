@@ -0,0 +1,27 @@
+
+package com.railway.booking.event;
+
+import com.railway.booking.cluster.Ring;
+
+/**
+ * Published after this node switches to a new cluster membership, so components holding
+ * per-key state can drop what moved away and load what moved here.
+ */
+public class MembershipChangedEvent {
+    
+    private final Ring previous;
+    private final Ring current;
+    
+    public MembershipChangedEvent(Ring previous, Ring current) {
+        this.previous = previous;
+        this.current = current;
+    }
+    
+    public Ring getPrevious() {
+        return previous;
+    }
+    
+    public Ring getCurrent() {
+        return current;
+    }
+}
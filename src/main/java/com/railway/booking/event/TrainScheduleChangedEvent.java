@@ -0,0 +1,24 @@
+
+package com.railway.booking.event;
+
+/**
+ * Published after a train, its classes or its stops are created, updated or deleted.
+ */
+public class TrainScheduleChangedEvent {
+    
+    private final Long trainId;
+    private final boolean deleted;
+    
+    public TrainScheduleChangedEvent(Long trainId, boolean deleted) {
+        this.trainId = trainId;
+        this.deleted = deleted;
+    }
+    
+    public Long getTrainId() {
+        return trainId;
+    }
+    
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,182 @@
+
+package com.railway.booking.fare;
+
+import com.railway.booking.event.TrainScheduleChangedEvent;
+import com.railway.booking.inventory.SeatInventory;
+import com.railway.booking.inventory.StopRange;
+import com.railway.booking.model.Passenger;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.TrainStop;
+import com.railway.booking.repository.TrainRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quotes fares in paise from {@link FareTable}s plus two lookup tables built once from
+ * configuration: the payable share by passenger age (concessions) and the fare multiplier
+ * by occupancy percent (surge), both in basis points. A quote is a few array reads and
+ * multiplications; BigDecimal only appears when a total is stored on a booking.
+ */
+@Component
+public class FareEngine {
+    
+    private static final int FULL = 10_000;
+    private static final int MAX_AGE = 125;
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Value("${booking.fare.child-max-age:11}")
+    private int childMaxAge;
+    
+    @Value("${booking.fare.child-discount-percent:50}")
+    private int childDiscountPercent;
+    
+    @Value("${booking.fare.senior-min-age:60}")
+    private int seniorMinAge;
+    
+    @Value("${booking.fare.senior-discount-percent:40}")
+    private int seniorDiscountPercent;
+    
+    // Comma-separated occupancy:surcharge percent pairs, e.g. 70:10,90:30
+    @Value("${booking.fare.surge-tiers:}")
+    private String surgeTiers;
+    
+    private final int[] payableByAge = new int[MAX_AGE + 1];
+    private final int[] surgeByOccupancy = new int[101];
+    private final Map<Long, FareTable> tables = new ConcurrentHashMap<>();
+    private final Map<Long, Long[]> classesByTrain = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        for (int age = 0; age <= MAX_AGE; age++) {
+            int discount = age <= childMaxAge ? childDiscountPercent : age >= seniorMinAge ? seniorDiscountPercent : 0;
+            payableByAge[age] = FULL - discount * 100;
+        }
+        int[] surcharges = new int[101];
+        if (!surgeTiers.trim().isEmpty()) {
+            for (String tier : surgeTiers.split(",")) {
+                String[] parts = tier.trim().split(":");
+                if (parts.length != 2) {
+                    throw new RuntimeException("Invalid surge tier: " + tier);
+                }
+                int occupancy = Integer.parseInt(parts[0].trim());
+                int surcharge = Integer.parseInt(parts[1].trim());
+                for (int percent = Math.max(0, occupancy); percent <= 100; percent++) {
+                    surcharges[percent] = Math.max(surcharges[percent], surcharge);
+                }
+            }
+        }
+        for (int percent = 0; percent <= 100; percent++) {
+            surgeByOccupancy[percent] = FULL + surcharges[percent] * 100;
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        tables.clear();
+        classesByTrain.clear();
+        for (Train train : trainRepository.findAllWithSchedule()) {
+            add(train);
+        }
+    }
+    
+    @EventListener
+    public synchronized void onScheduleChanged(TrainScheduleChangedEvent event) {
+        Long[] classIds = classesByTrain.remove(event.getTrainId());
+        if (classIds != null) {
+            for (Long classId : classIds) {
+                tables.remove(classId);
+            }
+        }
+        if (!event.isDeleted()) {
+            trainRepository.findWithScheduleById(event.getTrainId()).ifPresent(this::add);
+        }
+    }
+    
+    // Null if the class was not loaded; callers holding the entity use table(TrainClass)
+    public FareTable table(Long trainClassId) {
+        return tables.get(trainClassId);
+    }
+    
+    public FareTable table(TrainClass trainClass) {
+        FareTable table = tables.get(trainClass.getId());
+        return table != null ? table : newTable(trainClass, distances(trainClass.getTrain()));
+    }
+    
+    /**
+     * One passenger's fare in paise; a negative age means an adult with no concession.
+     * {@code availableSeats} is what was left on the range before this booking took its seats.
+     */
+    public long quote(FareTable table, int fromStop, int toStop, int availableSeats, int age) {
+        long fare = apply(table.baseFare(fromStop, toStop), surgeByOccupancy[table.occupancyPercent(availableSeats)]);
+        return age < 0 ? fare : apply(fare, payableByAge[Math.min(age, MAX_AGE)]);
+    }
+    
+    public long quote(TrainClass trainClass, StopRange range, int availableSeats, List<Passenger> passengers) {
+        FareTable table = table(trainClass);
+        long total = 0;
+        for (int i = 0; i < passengers.size(); i++) {
+            Integer age = passengers.get(i).getAge();
+            total += quote(table, range.getFromStop(), range.getToStop(), availableSeats, age != null ? age : -1);
+        }
+        return total;
+    }
+    
+    public static BigDecimal toRupees(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+    
+    public static long toPaise(BigDecimal rupees) {
+        return rupees.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    private void add(Train train) {
+        int[] distances = distances(train);
+        Long[] classIds = new Long[train.getTrainClasses().size()];
+        int i = 0;
+        for (TrainClass trainClass : train.getTrainClasses()) {
+            tables.put(trainClass.getId(), newTable(trainClass, distances));
+            classIds[i++] = trainClass.getId();
+        }
+        classesByTrain.put(train.getId(), classIds);
+    }
+    
+    private static FareTable newTable(TrainClass trainClass, int[] distances) {
+        int capacity = SeatInventory.capacity(trainClass);
+        return new FareTable(trainClass.getId(), toPaise(trainClass.getFare()), distances, capacity);
+    }
+    
+    // Cumulative km per stop; without usable distances every segment counts as one unit
+    private static int[] distances(Train train) {
+        int segments = StopRange.segmentCount(train);
+        int[] distances = new int[segments + 1];
+        List<TrainStop> stops = train.getStops();
+        boolean measured = segments > 1;
+        for (int stop = 0; measured && stop <= segments; stop++) {
+            Integer km = stops.get(stop).getDistanceKm();
+            measured = km != null && (stop == 0 || km > distances[stop - 1]);
+            distances[stop] = measured ? km : 0;
+        }
+        int origin = distances[0];
+        for (int stop = 0; stop <= segments; stop++) {
+            distances[stop] = measured ? distances[stop] - origin : stop;
+        }
+        return distances;
+    }
+    
+    private static long apply(long paise, int basisPoints) {
+        return (paise * basisPoints + FULL / 2) / FULL;
+    }
+}
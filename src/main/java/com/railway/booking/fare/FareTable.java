@@ -0,0 +1,51 @@
+
+package com.railway.booking.fare;
+
+/**
+ * Precomputed fare inputs for one train class: the full-route adult fare in paise and the
+ * cumulative distance at each stop. Immutable, so quoting needs no locks or allocation.
+ */
+public final class FareTable {
+    
+    private final Long trainClassId;
+    private final long farePaise;
+    private final int[] distanceKm;
+    private final int capacity;
+    
+    FareTable(Long trainClassId, long farePaise, int[] distanceKm, int capacity) {
+        this.trainClassId = trainClassId;
+        this.farePaise = farePaise;
+        this.distanceKm = distanceKm;
+        this.capacity = capacity;
+    }
+    
+    // The full-route fare shared out by distance, rounded to the nearest paisa
+    public long baseFare(int fromStop, int toStop) {
+        int total = distanceKm[distanceKm.length - 1];
+        return (farePaise * (distanceKm[toStop] - distanceKm[fromStop]) + total / 2) / total;
+    }
+    
+    public int distanceKm(int fromStop, int toStop) {
+        return distanceKm[toStop] - distanceKm[fromStop];
+    }
+    
+    public int occupancyPercent(int availableSeats) {
+        if (capacity <= 0) {
+            return 100;
+        }
+        int sold = Math.max(0, Math.min(capacity, capacity - availableSeats));
+        return sold * 100 / capacity;
+    }
+    
+    public Long getTrainClassId() {
+        return trainClassId;
+    }
+    
+    public long getFarePaise() {
+        return farePaise;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,103 @@
+
+package com.railway.booking.hold;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.inventory.SeatInventory;
+import com.railway.booking.inventory.StopRange;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class SeatHold {
+    
+    private final String holdId;
+    private final Long userId;
+    private final Long trainId;
+    private final Long trainClassId;
+    private final Date journeyDate;
+    private final Long fromStationId;
+    private final Long toStationId;
+    private final StopRange range;
+    private final int[] seats;
+    private final long createdAt;
+    private final long expiresAt;
+    
+    public SeatHold(String holdId, Long userId, Long trainId, Long trainClassId, Date journeyDate, Long fromStationId,
+                    Long toStationId, StopRange range, int[] seats, long createdAt, long expiresAt) {
+        this.holdId = holdId;
+        this.userId = userId;
+        this.trainId = trainId;
+        this.trainClassId = trainClassId;
+        this.journeyDate = journeyDate;
+        this.fromStationId = fromStationId;
+        this.toStationId = toStationId;
+        this.range = range;
+        this.seats = seats;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    public String getHoldId() {
+        return holdId;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Long getTrainId() {
+        return trainId;
+    }
+    
+    public Long getTrainClassId() {
+        return trainClassId;
+    }
+    
+    public Date getJourneyDate() {
+        return journeyDate;
+    }
+    
+    public Long getFromStationId() {
+        return fromStationId;
+    }
+    
+    public Long getToStationId() {
+        return toStationId;
+    }
+    
+    public List<String> getSeatNumbers() {
+        return Arrays.stream(seats).mapToObj(SeatInventory::toSeatNumber).collect(Collectors.toList());
+    }
+    
+    public Date getExpiresAt() {
+        return new Date(expiresAt);
+    }
+    
+    @JsonIgnore
+    public InventoryKey getKey() {
+        return InventoryKey.of(trainClassId, journeyDate);
+    }
+    
+    @JsonIgnore
+    public StopRange getRange() {
+        return range;
+    }
+    
+    @JsonIgnore
+    public int[] getSeats() {
+        return seats;
+    }
+    
+    @JsonIgnore
+    public long getCreatedAt() {
+        return createdAt;
+    }
+    
+    @JsonIgnore
+    public long getExpiresAtMillis() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,229 @@
+
+package com.railway.booking.hold;
+
+import com.railway.booking.cluster.ClusterMembership;
+import com.railway.booking.event.MembershipChangedEvent;
+import com.railway.booking.event.TrainScheduleChangedEvent;
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.inventory.SeatInventory;
+import com.railway.booking.inventory.StopRange;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.repository.TrainClassRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.util.TimingWheel;
+import com.railway.booking.util.TransactionCallbacks;
+import com.railway.booking.waitlist.Waitlist;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived seat holds taken before a booking exists. Held seats are claimed in the
+ * in-memory inventory only, expire on a {@link TimingWheel}, and are handed back in one
+ * release per layout and stop range on each sweep. Holds live in memory, so a restart
+ * simply lets them all go.
+ */
+@Component
+public class SeatHoldManager {
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private Waitlist waitlist;
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Autowired
+    private TrainClassRepository trainClassRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ClusterMembership membership;
+    
+    @Value("${booking.holds.ttl-seconds:300}")
+    private int ttlSeconds;
+    
+    @Value("${booking.holds.max-seats:6}")
+    private int maxSeats;
+    
+    private final Map<String, SeatHold> holds = new ConcurrentHashMap<>();
+    private final TimingWheel<String> wheel = new TimingWheel<>(1000, 512, System.currentTimeMillis());
+    
+    private Counter created;
+    private Counter converted;
+    private Counter expired;
+    private Counter released;
+    private Timer timeToBook;
+    
+    @PostConstruct
+    public void init() {
+        created = meterRegistry.counter("booking.holds", "outcome", "created");
+        converted = meterRegistry.counter("booking.holds", "outcome", "converted");
+        expired = meterRegistry.counter("booking.holds", "outcome", "expired");
+        released = meterRegistry.counter("booking.holds", "outcome", "released");
+        timeToBook = Timer.builder("booking.holds.time.to.book").register(meterRegistry);
+        Gauge.builder("booking.holds.active", holds, Map::size).register(meterRegistry);
+        Gauge.builder("booking.holds.conversion.ratio", this, manager -> manager.created.count() == 0
+                ? 0 : manager.converted.count() / manager.created.count()).register(meterRegistry);
+    }
+    
+    @Transactional(readOnly = true)
+    public SeatHold hold(Long userId, Long trainId, Long trainClassId, Date journeyDate,
+                         Long fromStationId, Long toStationId, int seatCount) {
+        if (seatCount < 1 || seatCount > maxSeats) {
+            throw new RuntimeException("A hold covers 1 to " + maxSeats + " seats");
+        }
+        Train train = trainRepository.findById(trainId)
+                .orElseThrow(() -> new RuntimeException("Train not found"));
+        TrainClass trainClass = trainClassRepository.findById(trainClassId)
+                .orElseThrow(() -> new RuntimeException("Train class not found"));
+        if (!trainClass.getTrain().getId().equals(train.getId())) {
+            throw new RuntimeException("Train class does not belong to train");
+        }
+        
+        // Freed seats belong to the waitlist, so nothing can be held while it has entries
+        StopRange range = StopRange.of(train, fromStationId, toStationId);
+        InventoryKey key = InventoryKey.of(trainClassId, journeyDate);
+        int[] seats = waitlist.hasWaiting(key) ? null : seatInventory.hold(trainClass, journeyDate, range, seatCount);
+        if (seats == null) {
+            throw new RuntimeException("Not enough seats available");
+        }
+        
+        // The id carries the inventory key so any node can route the hold to its owner
+        String holdId = key.getTrainClassId() + "-" + key.getJourneyDay() + "-" + UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        SeatHold hold = new SeatHold(holdId, userId, trainId, trainClassId, journeyDate,
+                fromStationId, toStationId, range, seats, now, now + ttlSeconds * 1000L);
+        holds.put(hold.getHoldId(), hold);
+        wheel.schedule(hold.getHoldId(), hold.getExpiresAtMillis());
+        created.increment();
+        return hold;
+    }
+    
+    /**
+     * The inventory key encoded in a hold id, or {@code null} if the id is not one of ours.
+     */
+    public static InventoryKey keyOf(String holdId) {
+        String[] parts = holdId.split("-", 3);
+        if (parts.length < 3) {
+            return null;
+        }
+        try {
+            return new InventoryKey(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    public SeatHold getHold(String holdId) {
+        SeatHold hold = holds.get(holdId);
+        if (hold == null) {
+            throw new RuntimeException("Hold not found or expired");
+        }
+        return hold;
+    }
+    
+    public void release(String holdId, Long userId) {
+        SeatHold hold = holds.get(holdId);
+        if (hold == null || !hold.getUserId().equals(userId) || !holds.remove(holdId, hold)) {
+            throw new RuntimeException("Hold not found or expired");
+        }
+        wheel.cancel(holdId);
+        seatInventory.releaseHeld(hold.getKey(), hold.getRange(), hold.getSeats());
+        released.increment();
+    }
+    
+    /**
+     * Hands a hold's seats to the booking being created in the surrounding transaction.
+     * If that transaction rolls back the hold is put back with its original expiry.
+     */
+    public SeatHold claim(String holdId, Long userId, int passengers) {
+        SeatHold hold = holds.get(holdId);
+        if (hold == null || !hold.getUserId().equals(userId)) {
+            throw new RuntimeException("Hold not found or expired");
+        }
+        if (hold.getSeats().length != passengers) {
+            throw new RuntimeException("Hold is for " + hold.getSeats().length + " passengers");
+        }
+        if (!holds.remove(holdId, hold)) {
+            throw new RuntimeException("Hold not found or expired");
+        }
+        wheel.cancel(holdId);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                converted.increment();
+                timeToBook.record(System.currentTimeMillis() - hold.getCreatedAt(), TimeUnit.MILLISECONDS);
+            } else {
+                holds.put(holdId, hold);
+                wheel.schedule(holdId, hold.getExpiresAtMillis());
+            }
+        });
+        return hold;
+    }
+    
+    // Holds on keys another node now owns are dropped along with the layout their seats were in
+    @EventListener(MembershipChangedEvent.class)
+    public void dropUnowned() {
+        for (SeatHold hold : holds.values()) {
+            if (!membership.owns(hold.getKey()) && holds.remove(hold.getHoldId(), hold)) {
+                wheel.cancel(hold.getHoldId());
+            }
+        }
+    }
+    
+    // Their seats are indexes into the layout SeatInventory drops when the train changes, so they go too
+    @EventListener
+    public void dropRescheduled(TrainScheduleChangedEvent event) {
+        for (SeatHold hold : holds.values()) {
+            if (hold.getTrainId().equals(event.getTrainId()) && holds.remove(hold.getHoldId(), hold)) {
+                wheel.cancel(hold.getHoldId());
+            }
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${booking.holds.sweep-interval-ms:1000}")
+    public void sweep() {
+        List<String> due = wheel.advance(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+        // One release per layout and stop range instead of one per hold
+        Map<List<Object>, List<SeatHold>> groups = new HashMap<>();
+        for (String holdId : due) {
+            SeatHold hold = holds.remove(holdId);
+            if (hold != null) {
+                List<Object> group = List.of(hold.getKey(), hold.getRange().getFromStop(), hold.getRange().getToStop());
+                groups.computeIfAbsent(group, g -> new ArrayList<>()).add(hold);
+            }
+        }
+        for (List<SeatHold> group : groups.values()) {
+            int[] seats = group.stream().map(SeatHold::getSeats).flatMapToInt(Arrays::stream).toArray();
+            SeatHold first = group.get(0);
+            seatInventory.releaseHeld(first.getKey(), first.getRange(), seats);
+            expired.increment(group.size());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+
+package com.railway.booking.inventory;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+
+public final class InventoryKey {
+    
+    private final long trainClassId;
+    private final long journeyDay;
+    
+    public InventoryKey(long trainClassId, long journeyDay) {
+        this.trainClassId = trainClassId;
+        this.journeyDay = journeyDay;
+    }
+    
+    public static InventoryKey of(Long trainClassId, Date journeyDate) {
+        return new InventoryKey(trainClassId, toEpochDay(journeyDate));
+    }
+    
+    // java.sql.Date (what Hibernate hands back for DATE columns) does not support toInstant()
+    public static long toEpochDay(Date date) {
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+    
+    public long getTrainClassId() {
+        return trainClassId;
+    }
+    
+    public long getJourneyDay() {
+        return journeyDay;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InventoryKey)) {
+            return false;
+        }
+        InventoryKey that = (InventoryKey) o;
+        return trainClassId == that.trainClassId && journeyDay == that.journeyDay;
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(trainClassId) + Long.hashCode(journeyDay);
+    }
+    
+    @Override
+    public String toString() {
+        return trainClassId + "@" + journeyDay;
+    }
+}
@@ -0,0 +1,411 @@
+
+package com.railway.booking.inventory;
+
+import com.railway.booking.cluster.ClusterMembership;
+import com.railway.booking.event.MembershipChangedEvent;
+import com.railway.booking.event.TrainScheduleChangedEvent;
+import com.railway.booking.ledger.BookingLedger;
+import com.railway.booking.model.Booking;
+import com.railway.booking.model.Passenger;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.repository.PassengerRepository;
+import com.railway.booking.repository.SeatAssignment;
+import com.railway.booking.repository.TrainClassRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.repository.TrainSeatAssignment;
+import com.railway.booking.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory seat layouts per (train class, journey date): a {@link SeatMap} bitmap for
+ * point-to-point trains and a {@link SegmentSeatMap} for trains with intermediate stops.
+ * Reservations claim seats with CAS, so concurrent bookings for the same class never touch
+ * the train_classes row; committed changes reach MySQL through {@link SeatInventoryWriter}.
+ *
+ * In a cluster only the node owning a key keeps its layout and changes seats in it; other
+ * nodes answer availability from a replica reloaded from the database every
+ * {@code replica-ttl-ms}. A node that has just gained a key reads it straight from the
+ * database until the handoff settles.
+ */
+@Component
+public class SeatInventory {
+    
+    @Autowired
+    private SeatInventoryWriter writer;
+    
+    @Autowired
+    private PassengerRepository passengerRepository;
+    
+    @Autowired
+    private BookingLedger ledger;
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Autowired
+    private TrainClassRepository trainClassRepository;
+    
+    @Autowired
+    private ClusterMembership membership;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${booking.inventory.horizon-days:120}")
+    private int horizonDays;
+    
+    @Value("${booking.cluster.replica-ttl-ms:5000}")
+    private long replicaTtlMillis;
+    
+    private final Map<InventoryKey, SeatLayout> layouts = new ConcurrentHashMap<>();
+    private final Map<InventoryKey, Replica> replicas = new ConcurrentHashMap<>();
+    
+    // availableSeats counts across all dates, so it can only stand in for capacity before anything was sold
+    @PostConstruct
+    public void backfillCapacity() {
+        trainClassRepository.backfillTotalSeats();
+        // Require the column once every row has a value; checked first so MySQL does not rebuild the table on every start.
+        // MODIFY is MySQL's syntax; the tests run on H2, which takes the standard form
+        String requireColumn = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, "train_classes", "total_seats")) {
+                if (!columns.next() || columns.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls) {
+                    return null;
+                }
+            }
+            return "MySQL".equals(metaData.getDatabaseProductName())
+                    ? "ALTER TABLE train_classes MODIFY total_seats INT NOT NULL"
+                    : "ALTER TABLE train_classes ALTER COLUMN total_seats SET NOT NULL";
+        });
+        if (requireColumn != null) {
+            jdbcTemplate.execute(requireColumn);
+        }
+    }
+    
+    public int getAvailableSeats(TrainClass trainClass, Date journeyDate, StopRange range) {
+        return readLayout(trainClass, journeyDate).available(range.getFromStop(), range.getToStop());
+    }
+    
+    /**
+     * For callers that only hold ids, such as search. Reads an owned layout already in memory,
+     * otherwise a replica; a missing replica is loaded for every class of the train at once and
+     * never becomes an owned layout or a ledger baseline. Dates outside the horizon have no seats.
+     */
+    public int getAvailableSeats(Long trainId, Long trainClassId, Date journeyDate, int fromStop, int toStop) {
+        InventoryKey key = InventoryKey.of(trainClassId, journeyDate);
+        if (!withinHorizon(key)) {
+            return 0;
+        }
+        SeatLayout layout = servesOwned(key) ? layouts.get(key) : null;
+        if (layout == null) {
+            layout = freshReplica(key);
+        }
+        if (layout == null) {
+            layout = loadReplicas(trainId, journeyDate).get(key);
+        }
+        return layout != null ? layout.available(fromStop, toStop) : 0;
+    }
+    
+    /**
+     * True only when the layout is already in memory and no stop range could fit the request;
+     * never loads from the database, so it is safe to call before admitting a booking.
+     */
+    public boolean isSoldOut(InventoryKey key, int seats) {
+        SeatLayout layout = layouts.get(key);
+        return layout != null && layout.maxAvailable() < seats;
+    }
+    
+    /**
+     * Reserves seats over the given stops for the surrounding transaction and returns their
+     * zero-based indexes, or {@code null} if the class is full for that date and range.
+     */
+    public int[] tryReserve(TrainClass trainClass, Date journeyDate, StopRange range, int seats) {
+        SeatLayout layout = ownedLayout(trainClass, journeyDate);
+        int[] allocated = layout.allocate(seats, range.getFromStop(), range.getToStop());
+        if (allocated == null) {
+            return null;
+        }
+        
+        // Give the seats back if the surrounding booking transaction rolls back; BookingLedger logs the rollback first
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                writer.record(trainClass.getId(), -seats);
+            } else {
+                layout.release(allocated, range.getFromStop(), range.getToStop());
+            }
+        });
+        return allocated;
+    }
+    
+    /**
+     * Takes seats for a hold that belongs to no transaction. Nothing reaches the database
+     * until the hold becomes a booking via {@link #confirmHeld}, or it is given back with
+     * {@link #releaseHeld}.
+     */
+    public int[] hold(TrainClass trainClass, Date journeyDate, StopRange range, int seats) {
+        return ownedLayout(trainClass, journeyDate).allocate(seats, range.getFromStop(), range.getToStop());
+    }
+    
+    public void confirmHeld(TrainClass trainClass, int seats) {
+        TransactionCallbacks.afterCommit(() -> writer.record(trainClass.getId(), -seats));
+    }
+    
+    public void releaseHeld(InventoryKey key, StopRange range, int[] seats) {
+        SeatLayout layout = layouts.get(key);
+        // A purged layout means the date has departed; there is nothing left to give back to
+        if (layout != null) {
+            layout.release(seats, range.getFromStop(), range.getToStop());
+        }
+    }
+    
+    public void release(TrainClass trainClass, Date journeyDate, StopRange range, int[] seats) {
+        SeatLayout layout = ownedLayout(trainClass, journeyDate);
+        
+        // Only hand seats back once the cancellation is durable and, through BookingLedger's ordering, logged
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                layout.release(seats, range.getFromStop(), range.getToStop());
+                writer.record(trainClass.getId(), seats.length);
+            }
+        });
+    }
+    
+    public static String toSeatNumber(int seat) {
+        return String.valueOf(seat + 1);
+    }
+    
+    public static int toSeatIndex(String seatNumber) {
+        return Integer.parseInt(seatNumber) - 1;
+    }
+    
+    public static int[] seatIndexes(Booking booking) {
+        return booking.getPassengers().stream()
+                .map(Passenger::getSeatNumber)
+                .filter(Objects::nonNull)
+                .mapToInt(SeatInventory::toSeatIndex)
+                .toArray();
+    }
+    
+    @Scheduled(cron = "${booking.inventory.purge-cron:0 5 0 * * *}")
+    public void purgeDepartedDates() {
+        long today = LocalDate.now().toEpochDay();
+        layouts.keySet().removeIf(key -> key.getJourneyDay() < today);
+        replicas.keySet().removeIf(key -> key.getJourneyDay() < today);
+    }
+    
+    /**
+     * Only keys this node owned both before and after the change keep their layout. Keys that
+     * moved away are served by their new owner, and keys that moved here are loaded afresh once
+     * the handoff has settled, in case a booking racing the change left a stale layout behind.
+     */
+    @EventListener
+    public void rebalance(MembershipChangedEvent event) {
+        String self = membership.getSelf();
+        layouts.keySet().removeIf(key -> !membership.owns(key) || !self.equals(event.getPrevious().owner(key)));
+        replicas.keySet().removeIf(membership::owns);
+    }
+    
+    /**
+     * Layouts are sized for the stops and capacity they were loaded with, so a train's are
+     * dropped when either changes and reloaded from the database on next use. A deleted train's
+     * classes can no longer be booked, and their layouts go with the departed-date purge.
+     */
+    @EventListener
+    public void onScheduleChanged(TrainScheduleChangedEvent event) {
+        if (event.isDeleted()) {
+            return;
+        }
+        Set<Long> classIds = trainClassRepository.findByTrainId(event.getTrainId()).stream()
+                .map(TrainClass::getId)
+                .collect(Collectors.toSet());
+        layouts.keySet().removeIf(key -> classIds.contains(key.getTrainClassId()));
+        replicas.keySet().removeIf(key -> classIds.contains(key.getTrainClassId()));
+    }
+    
+    private SeatLayout ownedLayout(TrainClass trainClass, Date journeyDate) {
+        membership.checkOwner(InventoryKey.of(trainClass.getId(), journeyDate));
+        return layout(trainClass, journeyDate);
+    }
+    
+    private SeatLayout readLayout(TrainClass trainClass, Date journeyDate) {
+        InventoryKey key = InventoryKey.of(trainClass.getId(), journeyDate);
+        if (servesOwned(key)) {
+            return layout(trainClass, journeyDate);
+        }
+        SeatLayout replica = freshReplica(key);
+        if (replica == null) {
+            checkHorizon(key);
+            replica = load(trainClass, passengerRepository.findSeatAssignments(trainClass.getId(), journeyDate));
+            cacheReplica(key, replica, System.currentTimeMillis());
+        }
+        return replica;
+    }
+    
+    // A key still being handed over may miss the previous owner's last bookings, so it gets no owned layout yet
+    private boolean servesOwned(InventoryKey key) {
+        return membership.owns(key) && !membership.isHandingOver(key);
+    }
+    
+    // ...and no cached replica either, which would outlive the handoff
+    private void cacheReplica(InventoryKey key, SeatLayout layout, long loadedAt) {
+        if (!membership.owns(key) || !membership.isHandingOver(key)) {
+            replicas.put(key, new Replica(layout, loadedAt));
+        }
+    }
+    
+    // Seats of a key this node serves only change through its layout, so until one is built the replica stays current
+    private SeatLayout freshReplica(InventoryKey key) {
+        Replica replica = replicas.get(key);
+        if (replica == null) {
+            return null;
+        }
+        return servesOwned(key) || System.currentTimeMillis() - replica.loadedAt < replicaTtlMillis ? replica.layout : null;
+    }
+    
+    private SeatLayout layout(TrainClass trainClass, Date journeyDate) {
+        InventoryKey key = InventoryKey.of(trainClass.getId(), journeyDate);
+        SeatLayout layout = layouts.get(key);
+        if (layout != null) {
+            return layout;
+        }
+        checkHorizon(key);
+        
+        SeatLayout recovered = restore(trainClass, key);
+        if (recovered != null) {
+            SeatLayout existing = layouts.putIfAbsent(key, recovered);
+            replicas.remove(key);
+            return keepIfOwned(key, existing != null ? existing : recovered);
+        }
+        
+        // Load outside the map so a slow query does not block other keys in the same bin
+        SeatLayout loaded = load(trainClass, passengerRepository.findSeatAssignments(trainClass.getId(), journeyDate));
+        SeatLayout existing = ledger.publishBaseline(key, StopRange.segmentCount(trainClass.getTrain()),
+                loaded.segmentMasks(), () -> layouts.putIfAbsent(key, loaded));
+        replicas.remove(key);
+        return keepIfOwned(key, existing != null ? existing : loaded);
+    }
+    
+    // A rebalance that ran while the layout loaded swept the map before it was added; the caller still gets it for the handoff
+    private SeatLayout keepIfOwned(InventoryKey key, SeatLayout layout) {
+        if (!membership.owns(key)) {
+            layouts.remove(key, layout);
+        }
+        return layout;
+    }
+    
+    private void checkHorizon(InventoryKey key) {
+        if (!withinHorizon(key)) {
+            throw new RuntimeException("Journey date is outside the booking horizon");
+        }
+    }
+    
+    private boolean withinHorizon(InventoryKey key) {
+        long today = LocalDate.now().toEpochDay();
+        return key.getJourneyDay() >= today && key.getJourneyDay() <= today + horizonDays;
+    }
+    
+    // Two queries for the whole train rather than two per class
+    private Map<InventoryKey, SeatLayout> loadReplicas(Long trainId, Date journeyDate) {
+        Train train = trainRepository.findWithScheduleById(trainId)
+                .orElseThrow(() -> new RuntimeException("Train not found"));
+        Map<Long, List<TrainSeatAssignment>> assignments = passengerRepository.findTrainSeatAssignments(trainId, journeyDate)
+                .stream()
+                .collect(Collectors.groupingBy(TrainSeatAssignment::getTrainClassId));
+        
+        Map<InventoryKey, SeatLayout> loaded = new HashMap<>();
+        long loadedAt = System.currentTimeMillis();
+        for (TrainClass trainClass : train.getTrainClasses()) {
+            InventoryKey key = InventoryKey.of(trainClass.getId(), journeyDate);
+            SeatLayout layout = load(trainClass, assignments.getOrDefault(trainClass.getId(), Collections.emptyList()));
+            cacheReplica(key, layout, loadedAt);
+            loaded.put(key, layout);
+        }
+        return loaded;
+    }
+    
+    // Rebuilds a layout from the ledger's recovered occupancy, one occupy() per run of sold segments
+    private SeatLayout restore(TrainClass trainClass, InventoryKey key) {
+        // Another node may have owned the key while this one was down, so only the database is current
+        if (membership.isEnabled()) {
+            return null;
+        }
+        int segments = StopRange.segmentCount(trainClass.getTrain());
+        long[] masks = ledger.takeRecovered(key, segments);
+        if (masks == null || masks.length != capacity(trainClass)) {
+            return null;
+        }
+        SeatLayout layout = newLayout(masks.length, segments);
+        long valid = segments == 64 ? -1L : (1L << segments) - 1;
+        for (int seat = 0; seat < masks.length; seat++) {
+            long mask = masks[seat] & valid;
+            while (mask != 0) {
+                int from = Long.numberOfTrailingZeros(mask);
+                int to = from + Long.numberOfTrailingZeros(~(mask >>> from));
+                layout.occupy(seat, from, to);
+                mask = to == 64 ? 0 : mask & (-1L << to);
+            }
+        }
+        return layout;
+    }
+    
+    private SeatLayout load(TrainClass trainClass, List<? extends SeatAssignment> assignments) {
+        Train train = trainClass.getTrain();
+        int segments = StopRange.segmentCount(train);
+        SeatLayout layout = newLayout(capacity(trainClass), segments);
+        
+        int unassigned = 0;
+        for (SeatAssignment assignment : assignments) {
+            StopRange range = StopRange.of(train, assignment.getFromStationId(), assignment.getToStationId());
+            if (assignment.getSeatNumber() == null
+                    || !layout.occupy(toSeatIndex(assignment.getSeatNumber()), range.getFromStop(), range.getToStop())) {
+                unassigned++;
+            }
+        }
+        // Passengers booked before seats were assigned still hold a seat somewhere on the route
+        if (unassigned > 0) {
+            layout.allocate(Math.min(unassigned, layout.available(0, segments)), 0, segments);
+        }
+        return layout;
+    }
+    
+    // Seats per journey date; never availableSeats, which bookings on every date draw down
+    public static int capacity(TrainClass trainClass) {
+        return trainClass.getTotalSeats();
+    }
+    
+    private static SeatLayout newLayout(int capacity, int segments) {
+        return segments > 1 ? new SegmentSeatMap(capacity, segments) : new SeatMap(capacity);
+    }
+    
+    private static final class Replica {
+        
+        final SeatLayout layout;
+        final long loadedAt;
+        
+        Replica(SeatLayout layout, long loadedAt) {
+            this.layout = layout;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
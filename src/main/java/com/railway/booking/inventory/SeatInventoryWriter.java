@@ -0,0 +1,99 @@
+
+package com.railway.booking.inventory;
+
+import com.railway.booking.metrics.BookingMetrics;
+import com.railway.booking.repository.TrainClassRepository;
+import com.railway.booking.search.RouteIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind for {@link SeatInventory}: seat deltas are coalesced per train class and
+ * pushed to MySQL as a single relative UPDATE per class on every flush.
+ */
+@Component
+public class SeatInventoryWriter {
+    
+    private static final Logger log = LoggerFactory.getLogger(SeatInventoryWriter.class);
+    
+    @Autowired
+    private TrainClassRepository trainClassRepository;
+    
+    @Autowired
+    private RouteIndex routeIndex;
+    
+    @Autowired
+    private BookingMetrics bookingMetrics;
+    
+    @Value("${booking.inventory.flush-max-attempts:4}")
+    private int maxAttempts;
+    
+    @Value("${booking.inventory.flush-retry-backoff-ms:20}")
+    private long retryBackoffMillis;
+    
+    private final Map<Long, AtomicInteger> pendingDeltas = new ConcurrentHashMap<>();
+    
+    public void record(Long trainClassId, int delta) {
+        pendingDeltas.computeIfAbsent(trainClassId, id -> new AtomicInteger()).addAndGet(delta);
+    }
+    
+    @Scheduled(fixedDelayString = "${booking.inventory.flush-interval-ms:500}")
+    public void flush() {
+        for (Map.Entry<Long, AtomicInteger> entry : pendingDeltas.entrySet()) {
+            int delta = entry.getValue().getAndSet(0);
+            if (delta == 0) {
+                continue;
+            }
+            try {
+                adjust(entry.getKey(), delta);
+                routeIndex.adjustAvailableSeats(entry.getKey(), delta);
+            } catch (RuntimeException e) {
+                // Put the delta back so the next flush retries it
+                entry.getValue().addAndGet(delta);
+                log.warn("Failed to persist seat delta {} for train class {}", delta, entry.getKey(), e);
+            }
+        }
+    }
+    
+    /**
+     * The relative UPDATE cannot lose a concurrent change, but it can lose a lock race (deadlock
+     * or lock wait timeout) against a train edit touching the same row; those are retried a few
+     * times with jittered backoff before the delta is left for the next flush.
+     */
+    private void adjust(Long trainClassId, int delta) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                trainClassRepository.adjustAvailableSeats(trainClassId, delta);
+                return;
+            } catch (TransientDataAccessException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                bookingMetrics.optimisticRetry(null);
+                long backoff = retryBackoffMillis << (attempt - 1);
+                try {
+                    Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
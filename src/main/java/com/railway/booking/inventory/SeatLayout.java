@@ -0,0 +1,26 @@
+
+package com.railway.booking.inventory;
+
+/**
+ * Seat occupancy for one train class on one journey date. Stops are zero-based indexes into
+ * the train's route; a reservation from stop {@code from} to stop {@code to} occupies
+ * segments {@code from .. to-1}.
+ */
+public interface SeatLayout {
+    
+    int getCapacity();
+    
+    int available(int fromStop, int toStop);
+    
+    // Upper bound on available(from, to) over every stop range; cheap enough to check per request
+    int maxAvailable();
+    
+    int[] allocate(int count, int fromStop, int toStop);
+    
+    void release(int[] seats, int fromStop, int toStop);
+    
+    boolean occupy(int seat, int fromStop, int toStop);
+    
+    // Per seat, a bitmask of the sold segments (bit s = stop s to s+1)
+    long[] segmentMasks();
+}
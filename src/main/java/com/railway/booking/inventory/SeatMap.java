@@ -0,0 +1,214 @@
+
+package com.railway.booking.inventory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Seat occupancy for a point-to-point train class on one journey date, one bit per seat. A 600-seat
+ * class is ten longs, so a 120-day horizon over a few thousand trains stays in the low
+ * hundreds of MB. Every update is a CAS on a single word; the free counter is claimed
+ * first, so a caller that gets past it is guaranteed to find its bits.
+ */
+public class SeatMap implements SeatLayout {
+    
+    private final int capacity;
+    private final AtomicLongArray words;
+    private final AtomicInteger free;
+    // Lowest word that may still have a free bit; only a hint, never a guarantee
+    private final AtomicInteger firstFreeWord = new AtomicInteger();
+    
+    public SeatMap(int capacity) {
+        this.capacity = capacity;
+        this.words = new AtomicLongArray((capacity + 63) >>> 6);
+        this.free = new AtomicInteger(capacity);
+    }
+    
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public int available() {
+        return free.get();
+    }
+    
+    public boolean isOccupied(int seat) {
+        return (words.get(seat >>> 6) & (1L << seat)) != 0;
+    }
+    
+    // A point-to-point train has a single segment, so the stop range is always the whole route
+    @Override
+    public int available(int fromStop, int toStop) {
+        return available();
+    }
+    
+    @Override
+    public int maxAvailable() {
+        return available();
+    }
+    
+    @Override
+    public int[] allocate(int count, int fromStop, int toStop) {
+        return allocate(count);
+    }
+    
+    @Override
+    public void release(int[] seats, int fromStop, int toStop) {
+        release(seats);
+    }
+    
+    @Override
+    public boolean occupy(int seat, int fromStop, int toStop) {
+        return occupy(seat);
+    }
+    
+    @Override
+    public long[] segmentMasks() {
+        long[] masks = new long[capacity];
+        for (int seat = 0; seat < capacity; seat++) {
+            masks[seat] = isOccupied(seat) ? 1L : 0L;
+        }
+        return masks;
+    }
+    
+    /**
+     * Allocates {@code count} seats, adjacent within one word when possible.
+     * Returns the zero-based seat indexes, or {@code null} if not enough seats are free.
+     */
+    public int[] allocate(int count) {
+        if (count <= 0 || !claim(count)) {
+            return null;
+        }
+        int[] seats = new int[count];
+        if (count <= 64 && allocateAdjacent(count, seats)) {
+            return seats;
+        }
+        for (int i = 0; i < count; i++) {
+            seats[i] = allocateOne();
+        }
+        return seats;
+    }
+    
+    public void release(int[] seats) {
+        int released = 0;
+        int lowestWord = Integer.MAX_VALUE;
+        for (int seat : seats) {
+            if (clear(seat)) {
+                released++;
+                lowestWord = Math.min(lowestWord, seat >>> 6);
+            }
+        }
+        if (released > 0) {
+            free.addAndGet(released);
+            firstFreeWord.accumulateAndGet(lowestWord, Math::min);
+        }
+    }
+    
+    /**
+     * Marks a specific seat as taken, used when loading persisted assignments.
+     * Returns {@code false} if the seat was already taken.
+     */
+    public boolean occupy(int seat) {
+        if (seat < 0 || seat >= capacity || !claim(1)) {
+            return false;
+        }
+        int index = seat >>> 6;
+        long bit = 1L << seat;
+        while (true) {
+            long word = words.get(index);
+            if ((word & bit) != 0) {
+                free.incrementAndGet();
+                return false;
+            }
+            if (words.compareAndSet(index, word, word | bit)) {
+                return true;
+            }
+        }
+    }
+    
+    private boolean claim(int count) {
+        while (true) {
+            int available = free.get();
+            if (available < count) {
+                return false;
+            }
+            if (free.compareAndSet(available, available - count)) {
+                return true;
+            }
+        }
+    }
+    
+    private boolean allocateAdjacent(int count, int[] seats) {
+        long run = count == 64 ? -1L : (1L << count) - 1;
+        for (int index = firstFreeWord.get(); index < words.length(); index++) {
+            while (true) {
+                long word = words.get(index);
+                long vacant = ~word & validBits(index);
+                // Bit i of starts is set when seats i .. i+count-1 of this word are all vacant
+                long starts = vacant;
+                for (int shift = 1; shift < count && starts != 0; shift++) {
+                    starts &= vacant >>> shift;
+                }
+                if (starts == 0) {
+                    break;
+                }
+                int offset = Long.numberOfTrailingZeros(starts);
+                if (words.compareAndSet(index, word, word | (run << offset))) {
+                    int base = index << 6;
+                    for (int i = 0; i < count; i++) {
+                        seats[i] = base + offset + i;
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private int allocateOne() {
+        while (true) {
+            int start = firstFreeWord.get();
+            for (int index = start; index < words.length(); index++) {
+                while (true) {
+                    long word = words.get(index);
+                    long vacant = ~word & validBits(index);
+                    if (vacant == 0) {
+                        if (index == start) {
+                            firstFreeWord.compareAndSet(start, start + 1);
+                        }
+                        break;
+                    }
+                    int offset = Long.numberOfTrailingZeros(vacant);
+                    if (words.compareAndSet(index, word, word | (1L << offset))) {
+                        return (index << 6) + offset;
+                    }
+                }
+            }
+            // A concurrent release lowered the hint after we passed it; rescan from the start
+            firstFreeWord.accumulateAndGet(0, Math::min);
+        }
+    }
+    
+    private boolean clear(int seat) {
+        if (seat < 0 || seat >= capacity) {
+            return false;
+        }
+        int index = seat >>> 6;
+        long bit = 1L << seat;
+        while (true) {
+            long word = words.get(index);
+            if ((word & bit) == 0) {
+                return false;
+            }
+            if (words.compareAndSet(index, word, word & ~bit)) {
+                return true;
+            }
+        }
+    }
+    
+    private long validBits(int index) {
+        int remaining = capacity - (index << 6);
+        return remaining >= 64 ? -1L : (1L << remaining) - 1;
+    }
+}
@@ -0,0 +1,138 @@
+
+package com.railway.booking.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Seat occupancy for trains with intermediate stops: one long per seat, bit {@code s} set
+ * when segment {@code s} (stop s to stop s+1) is sold. Checking or taking a seat for a
+ * stop range is a mask test plus one CAS, so a seat vacated at a midway station can be
+ * resold for the rest of the route.
+ */
+public class SegmentSeatMap implements SeatLayout {
+    
+    public static final int MAX_SEGMENTS = 64;
+    
+    private final int capacity;
+    private final int segments;
+    private final AtomicLongArray occupancy;
+    
+    public SegmentSeatMap(int capacity, int segments) {
+        if (segments < 1 || segments > MAX_SEGMENTS) {
+            throw new IllegalArgumentException("Unsupported number of segments: " + segments);
+        }
+        this.capacity = capacity;
+        this.segments = segments;
+        this.occupancy = new AtomicLongArray(capacity);
+    }
+    
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public int getSegments() {
+        return segments;
+    }
+    
+    @Override
+    public int available(int fromStop, int toStop) {
+        long range = rangeMask(fromStop, toStop);
+        int free = 0;
+        for (int seat = 0; seat < capacity; seat++) {
+            if ((occupancy.get(seat) & range) == 0) {
+                free++;
+            }
+        }
+        return free;
+    }
+    
+    @Override
+    public int maxAvailable() {
+        long route = rangeMask(0, segments);
+        int free = 0;
+        for (int seat = 0; seat < capacity; seat++) {
+            if ((occupancy.get(seat) & route) != route) {
+                free++;
+            }
+        }
+        return free;
+    }
+    
+    @Override
+    public int[] allocate(int count, int fromStop, int toStop) {
+        long range = rangeMask(fromStop, toStop);
+        int[] seats = new int[count];
+        int taken = 0;
+        // Fill seats that are already sold on other segments first, so whole-route seats stay free
+        for (int pass = 0; pass < 2 && taken < count; pass++) {
+            boolean partlySold = pass == 0;
+            for (int seat = 0; seat < capacity && taken < count; seat++) {
+                long current = occupancy.get(seat);
+                if ((current != 0) == partlySold && take(seat, range)) {
+                    seats[taken++] = seat;
+                }
+            }
+        }
+        if (taken < count) {
+            for (int i = 0; i < taken; i++) {
+                clear(seats[i], range);
+            }
+            return null;
+        }
+        return seats;
+    }
+    
+    @Override
+    public void release(int[] seats, int fromStop, int toStop) {
+        long range = rangeMask(fromStop, toStop);
+        for (int seat : seats) {
+            if (seat >= 0 && seat < capacity) {
+                clear(seat, range);
+            }
+        }
+    }
+    
+    @Override
+    public boolean occupy(int seat, int fromStop, int toStop) {
+        return seat >= 0 && seat < capacity && take(seat, rangeMask(fromStop, toStop));
+    }
+    
+    @Override
+    public long[] segmentMasks() {
+        long[] masks = new long[capacity];
+        for (int seat = 0; seat < capacity; seat++) {
+            masks[seat] = occupancy.get(seat);
+        }
+        return masks;
+    }
+    
+    private boolean take(int seat, long range) {
+        while (true) {
+            long current = occupancy.get(seat);
+            if ((current & range) != 0) {
+                return false;
+            }
+            if (occupancy.compareAndSet(seat, current, current | range)) {
+                return true;
+            }
+        }
+    }
+    
+    private void clear(int seat, long range) {
+        while (true) {
+            long current = occupancy.get(seat);
+            if (occupancy.compareAndSet(seat, current, current & ~range)) {
+                return;
+            }
+        }
+    }
+    
+    private long rangeMask(int fromStop, int toStop) {
+        if (fromStop < 0 || toStop > segments || fromStop >= toStop) {
+            throw new IllegalArgumentException("Invalid stop range " + fromStop + ".." + toStop);
+        }
+        long upTo = toStop == 64 ? -1L : (1L << toStop) - 1;
+        return upTo & ~((1L << fromStop) - 1);
+    }
+}
@@ -0,0 +1,80 @@
+
+package com.railway.booking.inventory;
+
+import com.railway.booking.model.Booking;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainStop;
+
+import java.util.List;
+
+/**
+ * The part of a train's route a booking travels on, as zero-based stop indexes.
+ * Trains without stops are a single segment from source (0) to destination (1).
+ */
+public final class StopRange {
+    
+    private final int fromStop;
+    private final int toStop;
+    
+    public StopRange(int fromStop, int toStop) {
+        this.fromStop = fromStop;
+        this.toStop = toStop;
+    }
+    
+    public static StopRange fullRoute(Train train) {
+        return new StopRange(0, segmentCount(train));
+    }
+    
+    public static StopRange of(Train train, Long fromStationId, Long toStationId) {
+        int from = fromStationId == null ? 0 : stopIndex(train, fromStationId);
+        int to = toStationId == null ? segmentCount(train) : stopIndex(train, toStationId);
+        if (from >= to) {
+            throw new RuntimeException("Train " + train.getNumber() + " does not run between the given stations");
+        }
+        return new StopRange(from, to);
+    }
+    
+    public static StopRange of(Booking booking) {
+        return of(booking.getTrain(),
+                booking.getFromStation() != null ? booking.getFromStation().getId() : null,
+                booking.getToStation() != null ? booking.getToStation().getId() : null);
+    }
+    
+    public static int segmentCount(Train train) {
+        List<TrainStop> stops = train.getStops();
+        return stops.size() > 2 ? stops.size() - 1 : 1;
+    }
+    
+    public static int stopIndex(Train train, Long stationId) {
+        List<TrainStop> stops = train.getStops();
+        if (stops.size() > 2) {
+            for (int i = 0; i < stops.size(); i++) {
+                if (stops.get(i).getStation().getId().equals(stationId)) {
+                    return i;
+                }
+            }
+        } else if (train.getSourceStation().getId().equals(stationId)) {
+            return 0;
+        } else if (train.getDestinationStation().getId().equals(stationId)) {
+            return 1;
+        }
+        throw new RuntimeException("Train " + train.getNumber() + " does not stop at station " + stationId);
+    }
+    
+    public static Station stationAt(Train train, int stop) {
+        List<TrainStop> stops = train.getStops();
+        if (stops.size() > 2) {
+            return stops.get(stop).getStation();
+        }
+        return stop == 0 ? train.getSourceStation() : train.getDestinationStation();
+    }
+    
+    public int getFromStop() {
+        return fromStop;
+    }
+    
+    public int getToStop() {
+        return toStop;
+    }
+}
@@ -0,0 +1,331 @@
+
+package com.railway.booking.ledger;
+
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of booking events in fixed-size memory-mapped segment files, with
+ * periodic snapshots of the seat occupancy the log implies. On startup the latest
+ * snapshot plus the log tail are folded into per-(class, date) layouts that
+ * {@link com.railway.booking.inventory.SeatInventory} adopts instead of querying MySQL.
+ * <p>
+ * Writes land in the page cache, so they survive a process crash straight away; the
+ * periodic force bounds what an OS crash can lose. Seat-occupying events are appended
+ * before the booking commits (with a ROLLBACK entry if it then fails) and seat-freeing
+ * events after, so a crash in between errs towards a seat looking sold, never free.
+ * Seat-freeing entries are also logged ahead of every other completion callback, so they
+ * precede the CREATE of any booking that takes the seats once they are back in memory.
+ */
+@Component
+public class BookingLedger {
+    
+    private static final Logger log = LoggerFactory.getLogger(BookingLedger.class);
+    
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    // The next segment, created and mapped ahead of time; list() skips .tmp files
+    private static final String SPARE_SEGMENT = "next-segment.tmp";
+    // Record framing: body length, CRC32 of the body
+    private static final int FRAME_BYTES = 8;
+    
+    @Value("${booking.ledger.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${booking.ledger.dir:data/ledger}")
+    private String directory;
+    
+    @Value("${booking.ledger.segment-bytes:67108864}")
+    private int segmentBytes;
+    
+    private final Map<InventoryKey, LedgerState.Layout> recovered = new ConcurrentHashMap<>();
+    private final CRC32 crc = new CRC32();
+    // Forces sealed segments and maps the spare one, so neither holds up an append
+    private final ExecutorService io = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "booking-ledger-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Path dir;
+    private Path activeSegment;
+    private volatile MappedByteBuffer active;
+    private volatile MappedByteBuffer spare;
+    private long lastSeq;
+    
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        LedgerState state = replay(Long.MAX_VALUE, null, Long.MAX_VALUE);
+        state.dropDepartedBefore(LocalDate.now().toEpochDay());
+        recovered.putAll(state.getLayouts());
+        lastSeq = state.getLastSeq();
+        // Always start a fresh segment so a torn tail from a crash is never appended to
+        roll();
+        log.info("Booking ledger opened at seq {} with {} recovered layouts", lastSeq, recovered.size());
+    }
+    
+    /**
+     * Logs a booking event as part of the surrounding transaction: occupying events just
+     * before commit, everything else once the commit has succeeded.
+     */
+    public void record(LedgerEvent event) {
+        if (!enabled) {
+            return;
+        }
+        // Ahead of SeatInventory's release callbacks: replaying a CANCEL or ROLLBACK after the
+        // CREATE of whoever took the freed seat would free that booking's seat
+        if (event.getType().occupies()) {
+            TransactionCallbacks.beforeCommit(() -> append(event), () -> append(event.rollback()), Ordered.HIGHEST_PRECEDENCE);
+        } else {
+            TransactionCallbacks.afterCommit(() -> append(event), Ordered.HIGHEST_PRECEDENCE);
+        }
+    }
+    
+    /**
+     * Publishes a layout freshly loaded from the database and, if it won, logs it as the
+     * baseline for its key. Both happen under the append lock, so no event for the new
+     * layout can be logged ahead of its baseline.
+     */
+    public synchronized <T> T publishBaseline(InventoryKey key, int segments, long[] masks, Supplier<T> publish) {
+        T existing = publish.get();
+        if (existing == null && enabled) {
+            append(LedgerEvent.baseline(key, segments, masks));
+        }
+        return existing;
+    }
+    
+    // Recovered occupancy for a key, handed out once; null if the ledger has none
+    public long[] takeRecovered(InventoryKey key, int segments) {
+        LedgerState.Layout layout = recovered.remove(key);
+        return layout != null && layout.segments == segments ? layout.masks : null;
+    }
+    
+    public synchronized long append(LedgerEvent event) {
+        int size = FRAME_BYTES + event.encodedSize();
+        if (size + 4 > segmentBytes) {
+            throw new IllegalStateException("Ledger event of " + size + " bytes does not fit a segment");
+        }
+        if (active.remaining() < size + 4) {
+            roll();
+        }
+        long seq = ++lastSeq;
+        int start = active.position();
+        active.position(start + FRAME_BYTES);
+        event.encode(active, seq);
+        
+        ByteBuffer body = active.duplicate();
+        body.position(start + FRAME_BYTES).limit(start + size);
+        crc.reset();
+        crc.update(body);
+        active.putInt(start + 4, (int) crc.getValue());
+        // Length goes in last so a reader never sees a frame whose body is still being written
+        active.putInt(start, size - FRAME_BYTES);
+        return seq;
+    }
+    
+    /**
+     * Flushes the active segment without the append lock. force() writes back the whole
+     * mapping and never touches the buffer's position, so appends carry on while it runs.
+     * It is called on the shared buffer rather than a duplicate because on Java 11 a
+     * duplicate has no file descriptor and its force() does nothing.
+     */
+    @Scheduled(fixedDelayString = "${booking.ledger.force-interval-ms:200}")
+    public void force() {
+        MappedByteBuffer segment = active;
+        if (segment != null) {
+            segment.force();
+        }
+    }
+    
+    /**
+     * Folds the previous snapshot and every complete segment into a new snapshot, then
+     * deletes the segments and snapshots it supersedes. Runs off the append path: only
+     * the segment switch takes the lock.
+     */
+    @Scheduled(fixedDelayString = "${booking.ledger.snapshot-interval-ms:300000}",
+            initialDelayString = "${booking.ledger.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        if (!enabled) {
+            return;
+        }
+        Path sealedBefore;
+        long upToSeq;
+        synchronized (this) {
+            roll();
+            sealedBefore = activeSegment;
+            upToSeq = lastSeq;
+        }
+        try {
+            LedgerState state = replay(upToSeq, sealedBefore, upToSeq);
+            state.dropDepartedBefore(LocalDate.now().toEpochDay());
+            Path target = dir.resolve(String.format("%s%020d.bin", SNAPSHOT_PREFIX, state.getLastSeq()));
+            Path temp = dir.resolve(target.getFileName() + ".tmp");
+            state.write(temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            
+            for (Path snapshot : list(SNAPSHOT_PREFIX)) {
+                if (!snapshot.equals(target)) {
+                    Files.deleteIfExists(snapshot);
+                }
+            }
+            for (Path segment : list(SEGMENT_PREFIX)) {
+                if (segment.getFileName().toString().compareTo(sealedBefore.getFileName().toString()) < 0) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Ledger snapshot failed", e);
+        }
+    }
+    
+    @PreDestroy
+    public void close() throws InterruptedException {
+        io.shutdown();
+        io.awaitTermination(10, TimeUnit.SECONDS);
+        force();
+    }
+    
+    private LedgerState replay(long snapshotAtMost, Path segmentsBefore, long upToSeq) throws IOException {
+        LedgerState state = new LedgerState();
+        List<Path> snapshots = list(SNAPSHOT_PREFIX);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            try {
+                LedgerState candidate = LedgerState.read(snapshots.get(i));
+                if (candidate.getLastSeq() <= snapshotAtMost) {
+                    state = candidate;
+                    break;
+                }
+            } catch (IOException e) {
+                log.warn("Skipping unreadable ledger snapshot {}", snapshots.get(i), e);
+            }
+        }
+        for (Path segment : list(SEGMENT_PREFIX)) {
+            if (segmentsBefore != null && segment.getFileName().toString().compareTo(segmentsBefore.getFileName().toString()) >= 0) {
+                break;
+            }
+            replaySegment(segment, state, upToSeq);
+        }
+        return state;
+    }
+    
+    private void replaySegment(Path segment, LedgerState state, long upToSeq) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 check = new CRC32();
+            while (buffer.remaining() >= FRAME_BYTES) {
+                int length = buffer.getInt();
+                int expected = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    return;
+                }
+                ByteBuffer body = buffer.slice();
+                body.limit(length);
+                check.reset();
+                check.update(body.duplicate());
+                if ((int) check.getValue() != expected) {
+                    log.warn("Ledger segment {} has a torn record; ignoring the rest of it", segment);
+                    return;
+                }
+                long seq = LedgerEvent.peekSeq(body);
+                if (seq > upToSeq) {
+                    return;
+                }
+                state.apply(seq, LedgerEvent.decode(body));
+                buffer.position(buffer.position() + length);
+            }
+        }
+    }
+    
+    /**
+     * Switches to a new segment named after the next sequence number. Under the append lock
+     * this is only a rename of the spare segment; the sealed segment is forced and the next
+     * spare mapped on the io thread.
+     */
+    private void roll() {
+        if (active != null && active.position() == 0) {
+            return;
+        }
+        MappedByteBuffer sealed = active;
+        Path next = dir.resolve(String.format("%s%020d.log", SEGMENT_PREFIX, lastSeq + 1));
+        try {
+            MappedByteBuffer mapped = spare;
+            if (mapped != null) {
+                Files.move(dir.resolve(SPARE_SEGMENT), next, StandardCopyOption.ATOMIC_MOVE);
+                spare = null;
+            } else {
+                // Only the first segment, or a roll that came before the spare was ready
+                mapped = map(next);
+            }
+            active = mapped;
+            activeSegment = next;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open ledger segment " + next, e);
+        }
+        io.execute(() -> {
+            if (sealed != null) {
+                sealed.force();
+            }
+            prepareSpare();
+        });
+    }
+    
+    private void prepareSpare() {
+        if (spare != null) {
+            return;
+        }
+        try {
+            spare = map(dir.resolve(SPARE_SEGMENT));
+        } catch (IOException e) {
+            log.warn("Could not prepare the next ledger segment; it will be created when needed", e);
+        }
+    }
+    
+    private MappedByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+    
+    private List<Path> list(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix))
+                    .filter(path -> !path.getFileName().toString().endsWith(".tmp"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+
+package com.railway.booking.ledger;
+
+import com.railway.booking.inventory.InventoryKey;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One entry of the booking ledger. Seat-bearing events carry zero-based seat indexes
+ * over a stop range; a BASELINE carries the full per-seat segment masks of a layout as
+ * it was first loaded from the database.
+ */
+public final class LedgerEvent {
+    
+    public enum Type {
+        BASELINE(false),
+        CREATE(true),
+        PROMOTE(true),
+        CANCEL(false),
+        STATUS(false),
+        ROLLBACK(false);
+        
+        private final boolean occupies;
+        
+        Type(boolean occupies) {
+            this.occupies = occupies;
+        }
+        
+        // Occupying events are logged before commit, everything else after it
+        public boolean occupies() {
+            return occupies;
+        }
+    }
+    
+    // type, seq, booking, class, day, from, to, status length, seat or mask count
+    private static final int HEADER_BYTES = 1 + 8 + 8 + 8 + 8 + 1 + 1 + 2 + 4;
+    private static final int[] NO_SEATS = new int[0];
+    
+    private final Type type;
+    private final long bookingId;
+    private final InventoryKey key;
+    private final int fromStop;
+    private final int toStop;
+    private final String status;
+    private final int[] seats;
+    private final long[] masks;
+    
+    private LedgerEvent(Type type, long bookingId, InventoryKey key, int fromStop, int toStop,
+                        String status, int[] seats, long[] masks) {
+        this.type = type;
+        this.bookingId = bookingId;
+        this.key = key;
+        this.fromStop = fromStop;
+        this.toStop = toStop;
+        this.status = status;
+        this.seats = seats;
+        this.masks = masks;
+    }
+    
+    public static LedgerEvent seats(Type type, long bookingId, InventoryKey key, int fromStop, int toStop,
+                                    String status, int[] seats) {
+        return new LedgerEvent(type, bookingId, key, fromStop, toStop, status, seats != null ? seats : NO_SEATS, null);
+    }
+    
+    public static LedgerEvent baseline(InventoryKey key, int segments, long[] masks) {
+        return new LedgerEvent(Type.BASELINE, 0, key, 0, segments, null, NO_SEATS, masks);
+    }
+    
+    public LedgerEvent rollback() {
+        return new LedgerEvent(Type.ROLLBACK, bookingId, key, fromStop, toStop, status, seats, null);
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public long getBookingId() {
+        return bookingId;
+    }
+    
+    public InventoryKey getKey() {
+        return key;
+    }
+    
+    public int getFromStop() {
+        return fromStop;
+    }
+    
+    public int getToStop() {
+        return toStop;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public int[] getSeats() {
+        return seats;
+    }
+    
+    public long[] getMasks() {
+        return masks;
+    }
+    
+    int encodedSize() {
+        int statusBytes = status != null ? status.getBytes(StandardCharsets.UTF_8).length : 0;
+        return HEADER_BYTES + statusBytes + (masks != null ? masks.length * 8 : seats.length * 4);
+    }
+    
+    void encode(ByteBuffer buffer, long seq) {
+        byte[] statusBytes = status != null ? status.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(seq);
+        buffer.putLong(bookingId);
+        buffer.putLong(key.getTrainClassId());
+        buffer.putLong(key.getJourneyDay());
+        buffer.put((byte) fromStop);
+        buffer.put((byte) toStop);
+        buffer.putShort((short) statusBytes.length);
+        buffer.put(statusBytes);
+        if (masks != null) {
+            buffer.putInt(masks.length);
+            for (long mask : masks) {
+                buffer.putLong(mask);
+            }
+        } else {
+            buffer.putInt(seats.length);
+            for (int seat : seats) {
+                buffer.putInt(seat);
+            }
+        }
+    }
+    
+    static LedgerEvent decode(ByteBuffer buffer) {
+        Type type = Type.values()[buffer.get()];
+        buffer.getLong();
+        long bookingId = buffer.getLong();
+        InventoryKey key = new InventoryKey(buffer.getLong(), buffer.getLong());
+        int fromStop = buffer.get() & 0xFF;
+        int toStop = buffer.get() & 0xFF;
+        byte[] statusBytes = new byte[buffer.getShort()];
+        buffer.get(statusBytes);
+        String status = statusBytes.length > 0 ? new String(statusBytes, StandardCharsets.UTF_8) : null;
+        int count = buffer.getInt();
+        if (type == Type.BASELINE) {
+            long[] masks = new long[count];
+            for (int i = 0; i < count; i++) {
+                masks[i] = buffer.getLong();
+            }
+            return new LedgerEvent(type, bookingId, key, fromStop, toStop, status, NO_SEATS, masks);
+        }
+        int[] seats = new int[count];
+        for (int i = 0; i < count; i++) {
+            seats[i] = buffer.getInt();
+        }
+        return new LedgerEvent(type, bookingId, key, fromStop, toStop, status, seats, null);
+    }
+    
+    static long peekSeq(ByteBuffer buffer) {
+        return buffer.getLong(buffer.position() + 1);
+    }
+}
@@ -0,0 +1,142 @@
+
+package com.railway.booking.ledger;
+
+import com.railway.booking.inventory.InventoryKey;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Seat occupancy folded from ledger events, keyed like the live inventory. Applying an
+ * event only sets or clears segment bits, so replaying an event the state already
+ * reflects is harmless. Not thread-safe; each replay owns its own instance.
+ */
+class LedgerState {
+    
+    private static final int SNAPSHOT_MAGIC = 0x4C444752;
+    
+    private final Map<InventoryKey, Layout> layouts = new HashMap<>();
+    private long lastSeq;
+    
+    long getLastSeq() {
+        return lastSeq;
+    }
+    
+    Map<InventoryKey, Layout> getLayouts() {
+        return layouts;
+    }
+    
+    void apply(long seq, LedgerEvent event) {
+        if (seq <= lastSeq) {
+            return;
+        }
+        lastSeq = seq;
+        switch (event.getType()) {
+            case BASELINE:
+                layouts.put(event.getKey(), new Layout(event.getToStop(), event.getMasks().clone()));
+                break;
+            case CREATE:
+            case PROMOTE:
+                update(event, true);
+                break;
+            case CANCEL:
+            case ROLLBACK:
+                update(event, false);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    void dropDepartedBefore(long epochDay) {
+        layouts.keySet().removeIf(key -> key.getJourneyDay() < epochDay);
+    }
+    
+    // Events for a key without a baseline predate the ledger and cannot be trusted alone
+    private void update(LedgerEvent event, boolean occupied) {
+        Layout layout = layouts.get(event.getKey());
+        if (layout == null || event.getToStop() > layout.segments || event.getFromStop() >= event.getToStop()) {
+            return;
+        }
+        long range = rangeMask(event.getFromStop(), event.getToStop());
+        for (int seat : event.getSeats()) {
+            if (seat >= 0 && seat < layout.masks.length) {
+                layout.masks[seat] = occupied ? layout.masks[seat] | range : layout.masks[seat] & ~range;
+            }
+        }
+    }
+    
+    static long rangeMask(int fromStop, int toStop) {
+        long upTo = toStop == 64 ? -1L : (1L << toStop) - 1;
+        return upTo & ~((1L << fromStop) - 1);
+    }
+    
+    void write(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (OutputStream raw = new BufferedOutputStream(Files.newOutputStream(file))) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(raw, crc));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(lastSeq);
+            out.writeInt(layouts.size());
+            for (Map.Entry<InventoryKey, Layout> entry : layouts.entrySet()) {
+                out.writeLong(entry.getKey().getTrainClassId());
+                out.writeLong(entry.getKey().getJourneyDay());
+                out.writeByte(entry.getValue().segments);
+                out.writeInt(entry.getValue().masks.length);
+                for (long mask : entry.getValue().masks) {
+                    out.writeLong(mask);
+                }
+            }
+            out.flush();
+            new DataOutputStream(raw).writeLong(crc.getValue());
+        }
+    }
+    
+    static LedgerState read(Path file) throws IOException {
+        LedgerState state = new LedgerState();
+        CRC32 crc = new CRC32();
+        try (DataInputStream raw = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(raw, crc));
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a ledger snapshot: " + file);
+            }
+            state.lastSeq = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                InventoryKey key = new InventoryKey(in.readLong(), in.readLong());
+                int segments = in.readUnsignedByte();
+                long[] masks = new long[in.readInt()];
+                for (int seat = 0; seat < masks.length; seat++) {
+                    masks[seat] = in.readLong();
+                }
+                state.layouts.put(key, new Layout(segments, masks));
+            }
+            if (raw.readLong() != crc.getValue()) {
+                throw new IOException("Corrupt ledger snapshot: " + file);
+            }
+        }
+        return state;
+    }
+    
+    static final class Layout {
+        
+        final int segments;
+        final long[] masks;
+        
+        Layout(int segments, long[] masks) {
+            this.segments = segments;
+            this.masks = masks;
+        }
+    }
+}
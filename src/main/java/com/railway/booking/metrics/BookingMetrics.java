@@ -0,0 +1,149 @@
+
+package com.railway.booking.metrics;
+
+import com.railway.booking.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot-path instrumentation for booking creation. Stage latencies go to Micrometer timers with
+ * percentile histograms, for a sampled share of requests ({@code booking.metrics.sample-rate});
+ * an unsampled request costs one volatile read per stage. Rejection, retry and rollback
+ * counters are always on. While sampling is on, contention events also feed a per-train
+ * {@link ContentionHeatmap}, served by the {@code contention} actuator endpoint.
+ */
+@Component
+public class BookingMetrics {
+    
+    public enum Stage {
+        LOOKUP, SEAT_CHECK, SAVE, COMMIT
+    }
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${booking.metrics.sample-rate:0.0}")
+    private volatile double sampleRate;
+    
+    @Value("${booking.metrics.heatmap-minutes:60}")
+    private int heatmapMinutes;
+    
+    @Value("${booking.metrics.heatmap-max-trains:1000}")
+    private int heatmapMaxTrains;
+    
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private Timer total;
+    private Counter soldOut;
+    private Counter waitlisted;
+    private Counter retries;
+    private Counter rollbacks;
+    private ContentionHeatmap heatmap;
+    
+    @PostConstruct
+    public void init() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, timer("booking.create.stage").tag("stage", stage.name().toLowerCase()).register(meterRegistry));
+        }
+        total = timer("booking.create").register(meterRegistry);
+        soldOut = meterRegistry.counter("booking.seat.rejections", "reason", "sold_out");
+        waitlisted = meterRegistry.counter("booking.seat.rejections", "reason", "waitlisted");
+        retries = meterRegistry.counter("booking.optimistic.retries");
+        rollbacks = meterRegistry.counter("booking.transaction.rollbacks");
+        heatmap = new ContentionHeatmap(heatmapMinutes, heatmapMaxTrains);
+    }
+    
+    // A start time for a sampled request, or 0 when this request is not sampled
+    public long start() {
+        double rate = sampleRate;
+        if (rate <= 0 || (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate)) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+    
+    // Records the stage that began at {@code since} and returns the start of the next one
+    public long lap(Stage stage, long since) {
+        if (since == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        stages.get(stage).record(now - since, TimeUnit.NANOSECONDS);
+        return now;
+    }
+    
+    // Counts the surrounding transaction if it rolls back; register once at the top of the transaction
+    public void trackRollback(Long trainId) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (!committed) {
+                rollbacks.increment();
+                contention(trainId);
+            }
+        });
+    }
+    
+    // Times the commit that follows {@code committing}, and the whole request from {@code started}
+    public void trackCommit(long started, long committing) {
+        if (committing == 0) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            long now = System.nanoTime();
+            stages.get(Stage.COMMIT).record(now - committing, TimeUnit.NANOSECONDS);
+            total.record(now - started, TimeUnit.NANOSECONDS);
+        });
+    }
+    
+    public void seatRejected(Long trainId, boolean waitlist) {
+        (waitlist ? waitlisted : soldOut).increment();
+        contention(trainId);
+    }
+    
+    public void optimisticRetry(Long trainId) {
+        retries.increment();
+        contention(trainId);
+    }
+    
+    // Other signs of a hot train, such as a booking queuing for admission
+    public void contention(Long trainId) {
+        if (sampleRate > 0 && trainId != null) {
+            heatmap.record(trainId, System.currentTimeMillis());
+        }
+    }
+    
+    public ContentionHeatmap getHeatmap() {
+        return heatmap;
+    }
+    
+    public double getSampleRate() {
+        return sampleRate;
+    }
+    
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+    }
+    
+    @Scheduled(fixedDelayString = "${booking.metrics.heatmap-cleanup-interval-ms:300000}")
+    public void evictIdleTrains() {
+        heatmap.evictIdle(System.currentTimeMillis());
+    }
+    
+    private static Timer.Builder timer(String name) {
+        return Timer.builder(name)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .minimumExpectedValue(Duration.ofMillis(1).dividedBy(10))
+                .maximumExpectedValue(Duration.ofSeconds(10));
+    }
+}
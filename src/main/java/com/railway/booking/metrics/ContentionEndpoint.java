@@ -0,0 +1,44 @@
+
+package com.railway.booking.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/contention}: the per-train contention heatmap, hottest trains first. A POST
+ * with {@code sampleRate} turns sampling on or off at runtime.
+ */
+@Component
+@Endpoint(id = "contention")
+public class ContentionEndpoint {
+    
+    @Autowired
+    private BookingMetrics bookingMetrics;
+    
+    @ReadOperation
+    public Map<String, Object> heatmap(@Nullable Integer top) {
+        long now = System.currentTimeMillis();
+        ContentionHeatmap heatmap = bookingMetrics.getHeatmap();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("sampleRate", bookingMetrics.getSampleRate());
+        body.put("minutes", heatmap.getMinutes());
+        body.put("fromMinute", now / 60_000 - heatmap.getMinutes() + 1);
+        body.put("trains", heatmap.snapshot(now, top != null ? top : 20));
+        return body;
+    }
+    
+    @WriteOperation
+    public Map<String, Object> sampling(double sampleRate) {
+        bookingMetrics.setSampleRate(sampleRate);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("sampleRate", bookingMetrics.getSampleRate());
+        return body;
+    }
+}
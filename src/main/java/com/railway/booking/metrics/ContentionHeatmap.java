@@ -0,0 +1,127 @@
+
+package com.railway.booking.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contention events per train per minute over a sliding window, one ring of minute buckets
+ * per train. At most {@code maxTrains} trains are tracked; events for further trains are
+ * dropped rather than letting the map grow without bound.
+ */
+public class ContentionHeatmap {
+    
+    private final int minutes;
+    private final int maxTrains;
+    private final Map<Long, Row> rows = new ConcurrentHashMap<>();
+    
+    public ContentionHeatmap(int minutes, int maxTrains) {
+        this.minutes = minutes;
+        this.maxTrains = maxTrains;
+    }
+    
+    public void record(Long trainId, long nowMillis) {
+        Row row = rows.get(trainId);
+        if (row == null) {
+            if (rows.size() >= maxTrains) {
+                return;
+            }
+            row = rows.computeIfAbsent(trainId, id -> new Row(minutes));
+        }
+        long minute = nowMillis / 60_000;
+        int slot = (int) (minute % minutes);
+        long stamp = row.stamps.get(slot);
+        // An event racing the reset of a recycled bucket can be lost; this is a heatmap, not a ledger
+        if (stamp != minute && row.stamps.compareAndSet(slot, stamp, minute)) {
+            row.counts.set(slot, 0);
+        }
+        row.counts.incrementAndGet(slot);
+    }
+    
+    /**
+     * The {@code top} trains by events in the window, each with one count per minute from
+     * oldest to newest.
+     */
+    public List<TrainRow> snapshot(long nowMillis, int top) {
+        long currentMinute = nowMillis / 60_000;
+        List<TrainRow> result = new ArrayList<>();
+        for (Map.Entry<Long, Row> entry : rows.entrySet()) {
+            Row row = entry.getValue();
+            long[] counts = new long[minutes];
+            long total = 0;
+            for (int i = 0; i < minutes; i++) {
+                long minute = currentMinute - minutes + 1 + i;
+                int slot = (int) (minute % minutes);
+                if (row.stamps.get(slot) == minute) {
+                    counts[i] = row.counts.get(slot);
+                    total += counts[i];
+                }
+            }
+            if (total > 0) {
+                result.add(new TrainRow(entry.getKey(), total, counts));
+            }
+        }
+        result.sort(Comparator.comparingLong(TrainRow::getTotal).reversed());
+        return result.size() > top ? new ArrayList<>(result.subList(0, top)) : result;
+    }
+    
+    // Trains with nothing left in the window
+    public void evictIdle(long nowMillis) {
+        long oldest = nowMillis / 60_000 - minutes + 1;
+        rows.values().removeIf(row -> {
+            for (int slot = 0; slot < minutes; slot++) {
+                if (row.stamps.get(slot) >= oldest) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+    
+    public int getMinutes() {
+        return minutes;
+    }
+    
+    public static class TrainRow {
+        
+        private final Long trainId;
+        private final long total;
+        private final long[] counts;
+        
+        TrainRow(Long trainId, long total, long[] counts) {
+            this.trainId = trainId;
+            this.total = total;
+            this.counts = counts;
+        }
+        
+        public Long getTrainId() {
+            return trainId;
+        }
+        
+        public long getTotal() {
+            return total;
+        }
+        
+        public long[] getCounts() {
+            return counts;
+        }
+    }
+    
+    private static final class Row {
+        
+        private final AtomicLongArray counts;
+        private final AtomicLongArray stamps;
+        
+        Row(int minutes) {
+            counts = new AtomicLongArray(minutes);
+            stamps = new AtomicLongArray(minutes);
+            for (int i = 0; i < minutes; i++) {
+                stamps.set(i, -1);
+            }
+        }
+    }
+}
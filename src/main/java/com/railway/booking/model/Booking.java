@@ -8,7 +8,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = @Index(name = "idx_bookings_user_journey", columnList = "user_id, journeyDate, id"))
 public class Booking {
     
     @Id
@@ -30,6 +30,14 @@ public class Booking {
     @JoinColumn(name = "train_class_id", nullable = false)
     private TrainClass trainClass;
     
+    @ManyToOne
+    @JoinColumn(name = "from_station_id")
+    private Station fromStation; // null = train origin
+    
+    @ManyToOne
+    @JoinColumn(name = "to_station_id")
+    private Station toStation; // null = train terminus
+    
     @Column(nullable = false)
     @Temporal(TemporalType.DATE)
     private Date journeyDate;
@@ -38,11 +46,15 @@ public class Booking {
     private BigDecimal totalFare;
     
     @Column(nullable = false)
-    private String status; // CONFIRMED, WAITING, CANCELLED
+    private String status; // PENDING_PAYMENT, CONFIRMED, RAC, WAITING, CANCELLED
     
     @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL)
     private Set<Passenger> passengers = new HashSet<>();
     
+    @Column
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date holdExpiresAt; // seats are released if payment has not settled by then
+    
     @OneToOne(mappedBy = "booking", cascade = CascadeType.ALL)
     private Payment payment;
     
@@ -87,6 +99,22 @@ public class Booking {
         this.trainClass = trainClass;
     }
 
+    public Station getFromStation() {
+        return fromStation;
+    }
+
+    public void setFromStation(Station fromStation) {
+        this.fromStation = fromStation;
+    }
+
+    public Station getToStation() {
+        return toStation;
+    }
+
+    public void setToStation(Station toStation) {
+        this.toStation = toStation;
+    }
+
     public Date getJourneyDate() {
         return journeyDate;
     }
@@ -126,4 +154,12 @@ public class Booking {
     public void setPayment(Payment payment) {
         this.payment = payment;
     }
+
+    public Date getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(Date holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
 }
@@ -1,6 +1,8 @@
 
 package com.railway.booking.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.*;
 import java.math.BigDecimal;
 import java.util.Date;
@@ -13,6 +15,7 @@ public class Payment {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @JsonIgnore
     @OneToOne
     @JoinColumn(name = "booking_id", nullable = false)
     private Booking booking;
@@ -24,13 +27,14 @@ public class Payment {
     private BigDecimal amount;
     
     @Column(nullable = false)
-    private String status; // SUCCESS, FAILED, PENDING
+    private String status; // SUCCESS, FAILED, PENDING, REFUND_REQUESTED, REFUNDED
     
     @Column(nullable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private Date paymentDate;
     
-    @Column
+    // Client-supplied idempotency key; retries with the same id return the same payment
+    @Column(unique = true)
     private String transactionId;
     
     // Getters and Setters
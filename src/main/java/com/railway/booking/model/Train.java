@@ -2,7 +2,9 @@
 package com.railway.booking.model;
 
 import javax.persistence.*;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Entity
@@ -39,6 +41,10 @@ public class Train {
     @OneToMany(mappedBy = "train", cascade = CascadeType.ALL)
     private Set<TrainClass> trainClasses = new HashSet<>();
     
+    @OneToMany(mappedBy = "train", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("stopSequence")
+    private List<TrainStop> stops = new ArrayList<>(); // empty for point-to-point trains
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -111,4 +117,12 @@ public class Train {
     public void setTrainClasses(Set<TrainClass> trainClasses) {
         this.trainClasses = trainClasses;
     }
+
+    public List<TrainStop> getStops() {
+        return stops;
+    }
+
+    public void setStops(List<TrainStop> stops) {
+        this.stops = stops;
+    }
 }
@@ -1,6 +1,8 @@
 
 package com.railway.booking.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.*;
 import java.math.BigDecimal;
 
@@ -12,6 +14,7 @@ public class TrainClass {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @JsonIgnore
     @ManyToOne
     @JoinColumn(name = "train_id", nullable = false)
     private Train train;
@@ -22,9 +25,18 @@ public class TrainClass {
     @Column(nullable = false)
     private Integer availableSeats;
     
+    // Added nullable so ddl-auto=update can alter a filled table; SeatInventory backfills it and then requires it
+    @Column
+    private Integer totalSeats; // seat capacity per journey date
+    
     @Column(nullable = false)
     private BigDecimal fare;
     
+    // Bumped by every seat-count flush too, so a train edit based on a stale read fails instead of overwriting it
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -58,6 +70,14 @@ public class TrainClass {
         this.availableSeats = availableSeats;
     }
 
+    public Integer getTotalSeats() {
+        return totalSeats;
+    }
+
+    public void setTotalSeats(Integer totalSeats) {
+        this.totalSeats = totalSeats;
+    }
+
     public BigDecimal getFare() {
         return fare;
     }
@@ -65,4 +85,12 @@ public class TrainClass {
     public void setFare(BigDecimal fare) {
         this.fare = fare;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,93 @@
+
+package com.railway.booking.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "train_stops")
+public class TrainStop {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @JsonIgnore
+    @ManyToOne
+    @JoinColumn(name = "train_id", nullable = false)
+    private Train train;
+    
+    @ManyToOne
+    @JoinColumn(name = "station_id", nullable = false)
+    private Station station;
+    
+    @Column(nullable = false)
+    private Integer stopSequence; // 0 = origin
+    
+    @Column
+    private String arrivalTime;
+    
+    @Column
+    private String departureTime;
+    
+    @Column
+    private Integer distanceKm; // from origin
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Train getTrain() {
+        return train;
+    }
+
+    public void setTrain(Train train) {
+        this.train = train;
+    }
+
+    public Station getStation() {
+        return station;
+    }
+
+    public void setStation(Station station) {
+        this.station = station;
+    }
+
+    public Integer getStopSequence() {
+        return stopSequence;
+    }
+
+    public void setStopSequence(Integer stopSequence) {
+        this.stopSequence = stopSequence;
+    }
+
+    public String getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public void setArrivalTime(String arrivalTime) {
+        this.arrivalTime = arrivalTime;
+    }
+
+    public String getDepartureTime() {
+        return departureTime;
+    }
+
+    public void setDepartureTime(String departureTime) {
+        this.departureTime = departureTime;
+    }
+
+    public Integer getDistanceKm() {
+        return distanceKm;
+    }
+
+    public void setDistanceKm(Integer distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+}
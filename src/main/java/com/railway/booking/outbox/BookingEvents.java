@@ -0,0 +1,25 @@
+
+package com.railway.booking.outbox;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class BookingEvents {
+    
+    public static final String CREATED = "BOOKING_CREATED";
+    public static final String CONFIRMED = "BOOKING_CONFIRMED";
+    public static final String PROMOTED = "BOOKING_PROMOTED"; // off the waitlist, seats held until payment settles
+    public static final String CANCELLED = "BOOKING_CANCELLED";
+    
+    private BookingEvents() {
+    }
+    
+    // Handlers load anything else they need; the payload only identifies the booking
+    public static Map<String, Object> payload(Long bookingId, String pnr, String status) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("bookingId", bookingId);
+        payload.put("pnr", pnr);
+        payload.put("status", status);
+        return payload;
+    }
+}
@@ -0,0 +1,133 @@
+
+package com.railway.booking.outbox;
+
+import com.railway.booking.model.OutboxEvent;
+import com.railway.booking.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the outbox in batches. A batch is claimed with SKIP LOCKED in a short transaction
+ * that pushes its events' next attempt out by {@code claim-timeout-ms}, so no row lock is
+ * held while handlers call out and another dispatcher only picks an event up again if this
+ * one died. Each event is then handled in a transaction of its own, and the outcomes are
+ * written back together. A failed event is retried with exponential backoff plus jitter and
+ * parked as FAILED after {@code max-attempts}.
+ */
+@Component
+public class OutboxDispatcher {
+    
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired(required = false)
+    private List<OutboxHandler> handlers = Collections.emptyList();
+    
+    @Value("${booking.outbox.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${booking.outbox.max-attempts:10}")
+    private int maxAttempts;
+    
+    @Value("${booking.outbox.initial-backoff-ms:1000}")
+    private long initialBackoffMillis;
+    
+    @Value("${booking.outbox.max-backoff-ms:600000}")
+    private long maxBackoffMillis;
+    
+    @Value("${booking.outbox.retention-days:7}")
+    private int retentionDays;
+    
+    @Value("${booking.outbox.claim-timeout-ms:60000}")
+    private long claimTimeoutMillis;
+    
+    private final TransactionDefinition handlerTransaction =
+            new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    
+    @Scheduled(fixedDelayString = "${booking.outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        // Keep draining while batches come back full
+        List<OutboxEvent> events;
+        do {
+            events = transactionTemplate.execute(status -> claim());
+            for (OutboxEvent event : events) {
+                try {
+                    deliver(event);
+                    event.setStatus("DONE");
+                    event.setLastError(null);
+                } catch (Exception e) {
+                    fail(event, e);
+                }
+            }
+            List<OutboxEvent> settled = events;
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.saveAll(settled));
+        } while (events.size() == batchSize);
+    }
+    
+    @Scheduled(cron = "${booking.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeDelivered() {
+        outboxEventRepository.deleteDoneBefore(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays)));
+    }
+    
+    private List<OutboxEvent> claim() {
+        List<OutboxEvent> events = outboxEventRepository.lockDue(new Date(), batchSize);
+        Date claimedUntil = new Date(System.currentTimeMillis() + claimTimeoutMillis);
+        events.forEach(event -> event.setNextAttemptAt(claimedUntil));
+        return events;
+    }
+    
+    // A handler that fails rolls back only its own event's work
+    private void deliver(OutboxEvent event) throws Exception {
+        TransactionStatus status = transactionManager.getTransaction(handlerTransaction);
+        try {
+            for (OutboxHandler handler : handlers) {
+                if (handler.supports(event.getEventType())) {
+                    handler.handle(event);
+                }
+            }
+        } catch (Exception e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+        transactionManager.commit(status);
+    }
+    
+    private void fail(OutboxEvent event, Exception e) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        String message = e.getClass().getSimpleName() + ": " + e.getMessage();
+        event.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+        if (attempts >= maxAttempts) {
+            event.setStatus("FAILED");
+            log.error("Outbox event {} ({}) failed permanently after {} attempts", event.getId(), event.getEventType(), attempts, e);
+            return;
+        }
+        long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempts - 1, 20));
+        long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        event.setNextAttemptAt(new Date(System.currentTimeMillis() + jittered));
+        log.warn("Outbox event {} ({}) failed, attempt {}; retrying in {} ms", event.getId(), event.getEventType(), attempts, jittered);
+    }
+}
@@ -0,0 +1,15 @@
+
+package com.railway.booking.outbox;
+
+import com.railway.booking.model.OutboxEvent;
+
+/**
+ * A side effect run for committed bookings, outside the booking transaction. Handlers
+ * may be called more than once for the same event and must tolerate it.
+ */
+public interface OutboxHandler {
+    
+    boolean supports(String eventType);
+    
+    void handle(OutboxEvent event) throws Exception;
+}
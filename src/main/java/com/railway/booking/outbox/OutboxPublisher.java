@@ -0,0 +1,75 @@
+
+package com.railway.booking.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.railway.booking.model.OutboxEvent;
+import com.railway.booking.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes outbox events in the caller's transaction, so an event exists exactly when the
+ * booking change it describes has committed. {@link OutboxDispatcher} delivers them later.
+ */
+@Component
+public class OutboxPublisher {
+    
+    private static final String INSERT_EVENT = "INSERT INTO outbox_events " +
+            "(event_type, aggregate_id, payload, status, attempts, next_attempt_at, created_at) " +
+            "VALUES (?, ?, ?, 'PENDING', 0, ?, ?)";
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    // Must join the caller's transaction: the event commits or rolls back with the booking
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, Long aggregateId, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        event.setPayload(serialize(eventType, payload));
+        event.setStatus("PENDING");
+        Date now = new Date();
+        event.setCreatedAt(now);
+        event.setNextAttemptAt(now);
+        outboxEventRepository.save(event);
+    }
+    
+    // Batch variant for bulk bookings, which write through JDBC rather than JPA
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(String eventType, Map<Long, ?> payloadsByAggregateId) {
+        if (payloadsByAggregateId.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(payloadsByAggregateId.size());
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (Map.Entry<Long, ?> entry : payloadsByAggregateId.entrySet()) {
+            rows.add(new Object[] {eventType, entry.getKey(), serialize(eventType, entry.getValue()), now, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+    }
+    
+    private String serialize(String eventType, Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize outbox payload for " + eventType, e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+
+package com.railway.booking.payment;
+
+import java.math.BigDecimal;
+
+/**
+ * External payment provider. {@code transactionId} is the idempotency key: charging the
+ * same id twice must not charge twice, because the outbox may redeliver a request.
+ * Outcomes are SUCCESS, FAILED or PENDING (settles later; see {@link #status}).
+ */
+public interface PaymentGateway {
+    
+    String charge(String transactionId, BigDecimal amount, String paymentMethod);
+    
+    // Current outcome of an earlier charge (REFUNDED once refunded), or null if the gateway has never seen it
+    String status(String transactionId);
+    
+    void refund(String transactionId, BigDecimal amount);
+}
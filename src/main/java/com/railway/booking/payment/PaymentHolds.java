@@ -0,0 +1,76 @@
+
+package com.railway.booking.payment;
+
+import com.railway.booking.cluster.ClusterMembership;
+import com.railway.booking.event.MembershipChangedEvent;
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.repository.BookingRepository;
+import com.railway.booking.util.TimingWheel;
+import com.railway.booking.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Seats held for bookings awaiting payment, timed out on a {@link TimingWheel} so thousands
+ * of holds cost one sweep per tick instead of a scheduled task each. In a cluster each node
+ * times the holds of the keys it owns.
+ */
+@Component
+public class PaymentHolds {
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private ClusterMembership membership;
+    
+    @Value("${booking.payment.required:true}")
+    private boolean required;
+    
+    @Value("${booking.payment.hold-ttl-seconds:600}")
+    private int holdTtlSeconds;
+    
+    private final TimingWheel<Long> wheel = new TimingWheel<>(1000, 1024, System.currentTimeMillis());
+    
+    @EventListener({ApplicationReadyEvent.class, MembershipChangedEvent.class})
+    @Transactional(readOnly = true)
+    public void load() {
+        for (Object[] hold : bookingRepository.findPaymentHolds()) {
+            if (membership.owns(InventoryKey.of((Long) hold[2], (Date) hold[3]))) {
+                Date expiresAt = (Date) hold[1];
+                wheel.schedule((Long) hold[0], expiresAt != null ? expiresAt.getTime() : System.currentTimeMillis());
+            }
+        }
+    }
+    
+    public boolean isRequired() {
+        return required;
+    }
+    
+    public Date newExpiry() {
+        return new Date(System.currentTimeMillis() + holdTtlSeconds * 1000L);
+    }
+    
+    public void holdAfterCommit(Long bookingId, Date expiresAt) {
+        TransactionCallbacks.afterCommit(() -> wheel.schedule(bookingId, expiresAt.getTime()));
+    }
+    
+    public void postpone(Long bookingId, long untilMillis) {
+        wheel.schedule(bookingId, untilMillis);
+    }
+    
+    public void releaseAfterCommit(Long bookingId) {
+        TransactionCallbacks.afterCommit(() -> wheel.cancel(bookingId));
+    }
+    
+    public List<Long> expired(long nowMillis) {
+        return wheel.advance(nowMillis);
+    }
+}
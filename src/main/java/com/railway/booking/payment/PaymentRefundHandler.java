@@ -0,0 +1,41 @@
+
+package com.railway.booking.payment;
+
+import com.railway.booking.model.OutboxEvent;
+import com.railway.booking.model.Payment;
+import com.railway.booking.outbox.OutboxHandler;
+import com.railway.booking.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Refunds charges that settled after their booking was gone, once the decision to refund has committed
+@Component
+public class PaymentRefundHandler implements OutboxHandler {
+    
+    public static final String REFUND_REQUESTED = "REFUND_REQUESTED";
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private PaymentGateway paymentGateway;
+    
+    @Override
+    public boolean supports(String eventType) {
+        return REFUND_REQUESTED.equals(eventType);
+    }
+    
+    @Override
+    public void handle(OutboxEvent event) {
+        Payment payment = paymentRepository.findById(event.getAggregateId()).orElse(null);
+        if (payment == null || !"REFUND_REQUESTED".equals(payment.getStatus())) {
+            return;
+        }
+        // A redelivery after the refund went through but before REFUNDED was saved must not refund again
+        if (!"REFUNDED".equals(paymentGateway.status(payment.getTransactionId()))) {
+            paymentGateway.refund(payment.getTransactionId(), payment.getAmount());
+        }
+        payment.setStatus("REFUNDED");
+        paymentRepository.save(payment);
+    }
+}
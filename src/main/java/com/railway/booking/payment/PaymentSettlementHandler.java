@@ -0,0 +1,41 @@
+
+package com.railway.booking.payment;
+
+import com.railway.booking.model.OutboxEvent;
+import com.railway.booking.model.Payment;
+import com.railway.booking.outbox.OutboxHandler;
+import com.railway.booking.repository.PaymentRepository;
+import com.railway.booking.service.PaymentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Charges outside the request that created the payment; outbox retries cover gateway outages
+@Component
+public class PaymentSettlementHandler implements OutboxHandler {
+    
+    public static final String PAYMENT_REQUESTED = "PAYMENT_REQUESTED";
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private PaymentGateway paymentGateway;
+    
+    @Autowired
+    private PaymentService paymentService;
+    
+    @Override
+    public boolean supports(String eventType) {
+        return PAYMENT_REQUESTED.equals(eventType);
+    }
+    
+    @Override
+    public void handle(OutboxEvent event) {
+        Payment payment = paymentRepository.findById(event.getAggregateId()).orElse(null);
+        if (payment == null || !"PENDING".equals(payment.getStatus())) {
+            return;
+        }
+        String outcome = paymentGateway.charge(payment.getTransactionId(), payment.getAmount(), payment.getPaymentMethod());
+        paymentService.settle(payment.getTransactionId(), outcome);
+    }
+}
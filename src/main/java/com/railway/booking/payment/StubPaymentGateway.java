@@ -0,0 +1,44 @@
+
+package com.railway.booking.payment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process gateway for local runs and tests. Every charge gets the configured outcome;
+ * with PENDING, the charge reports SUCCESS the next time its status is polled.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.payment.gateway", havingValue = "stub", matchIfMissing = true)
+public class StubPaymentGateway implements PaymentGateway {
+    
+    private static final Logger log = LoggerFactory.getLogger(StubPaymentGateway.class);
+    
+    @Value("${booking.payment.stub.outcome:SUCCESS}")
+    private String outcome;
+    
+    private final Map<String, String> charges = new ConcurrentHashMap<>();
+    
+    @Override
+    public String charge(String transactionId, BigDecimal amount, String paymentMethod) {
+        return charges.computeIfAbsent(transactionId, id -> outcome);
+    }
+    
+    @Override
+    public String status(String transactionId) {
+        return charges.computeIfPresent(transactionId, (id, status) -> "PENDING".equals(status) ? "SUCCESS" : status);
+    }
+    
+    @Override
+    public void refund(String transactionId, BigDecimal amount) {
+        log.info("Stub refund of {} for transaction {}", amount, transactionId);
+        charges.put(transactionId, "REFUNDED");
+    }
+}
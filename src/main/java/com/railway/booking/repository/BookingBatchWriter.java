@@ -0,0 +1,138 @@
+
+package com.railway.booking.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Plain JDBC batch inserts for bulk bookings. IDENTITY keys stop Hibernate from batching
+ * inserts, so bookings go in as one batch, their ids are read back by PNR in one query,
+ * and passengers follow as a second batch. Runs in the caller's transaction.
+ */
+@Repository
+public class BookingBatchWriter {
+    
+    private static final String INSERT_BOOKING = "INSERT INTO bookings " +
+            "(pnr, user_id, train_id, train_class_id, from_station_id, to_station_id, journey_date, total_fare, status, hold_expires_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_PASSENGER = "INSERT INTO passengers " +
+            "(booking_id, name, age, gender, seat_number) VALUES (?, ?, ?, ?, ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    
+    /**
+     * Inserts the bookings and returns their generated ids keyed by PNR.
+     */
+    public Map<String, Long> insertBookings(List<BookingRow> rows) {
+        if (rows.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        jdbcTemplate.batchUpdate(INSERT_BOOKING, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.pnr);
+            ps.setLong(2, row.userId);
+            ps.setLong(3, row.trainId);
+            ps.setLong(4, row.trainClassId);
+            ps.setObject(5, row.fromStationId);
+            ps.setObject(6, row.toStationId);
+            ps.setDate(7, new Date(row.journeyDate.getTime()));
+            ps.setBigDecimal(8, row.totalFare);
+            ps.setString(9, row.status);
+            ps.setTimestamp(10, row.holdExpiresAt != null ? new Timestamp(row.holdExpiresAt.getTime()) : null);
+        });
+        
+        List<String> pnrs = rows.stream().map(row -> row.pnr).collect(Collectors.toList());
+        Map<String, Long> ids = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT id, pnr FROM bookings WHERE pnr IN (:pnrs)",
+                Collections.singletonMap("pnrs", pnrs),
+                rs -> {
+                    ids.put(rs.getString("pnr"), rs.getLong("id"));
+                });
+        return ids;
+    }
+    
+    public void insertPassengers(List<PassengerRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_PASSENGER, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.bookingId);
+            ps.setString(2, row.name);
+            ps.setInt(3, row.age);
+            ps.setString(4, row.gender);
+            ps.setString(5, row.seatNumber);
+        });
+    }
+    
+    public static class BookingRow {
+        
+        final String pnr;
+        final Long userId;
+        final Long trainId;
+        final Long trainClassId;
+        final Long fromStationId;
+        final Long toStationId;
+        final java.util.Date journeyDate;
+        final BigDecimal totalFare;
+        final String status;
+        final java.util.Date holdExpiresAt;
+        
+        public BookingRow(String pnr, Long userId, Long trainId, Long trainClassId, Long fromStationId, Long toStationId,
+                          java.util.Date journeyDate, BigDecimal totalFare, String status, java.util.Date holdExpiresAt) {
+            this.pnr = pnr;
+            this.userId = userId;
+            this.trainId = trainId;
+            this.trainClassId = trainClassId;
+            this.fromStationId = fromStationId;
+            this.toStationId = toStationId;
+            this.journeyDate = journeyDate;
+            this.totalFare = totalFare;
+            this.status = status;
+            this.holdExpiresAt = holdExpiresAt;
+        }
+        
+        public String getPnr() {
+            return pnr;
+        }
+        
+        public String getStatus() {
+            return status;
+        }
+        
+        public java.util.Date getHoldExpiresAt() {
+            return holdExpiresAt;
+        }
+    }
+    
+    public static class PassengerRow {
+        
+        final Long bookingId;
+        final String name;
+        final int age;
+        final String gender;
+        final String seatNumber;
+        
+        public PassengerRow(Long bookingId, String name, int age, String gender, String seatNumber) {
+            this.bookingId = bookingId;
+            this.name = name;
+            this.age = age;
+            this.gender = gender;
+            this.seatNumber = seatNumber;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+
+package com.railway.booking.repository;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Streams a user's booking history as NDJSON straight from a forward-only JDBC cursor.
+ * A fetch size of Integer.MIN_VALUE makes MySQL Connector/J stream rows one at a time
+ * instead of buffering the whole result, so memory stays flat however long the history is.
+ */
+@Repository
+public class BookingExportReader {
+    
+    private static final String SELECT_BOOKINGS = "SELECT b.id, b.pnr, b.status, b.journey_date, b.total_fare, " +
+            "t.number AS train_number, tc.class_name FROM bookings b " +
+            "JOIN trains t ON t.id = b.train_id JOIN train_classes tc ON tc.id = b.train_class_id " +
+            "WHERE b.user_id = ? ORDER BY b.journey_date, b.id";
+    
+    private final JdbcTemplate streamingJdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    public BookingExportReader(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+    
+    public void export(Long userId, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            streamingJdbcTemplate.query(SELECT_BOOKINGS, rs -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeNumberField("id", rs.getLong("id"));
+                    generator.writeStringField("pnr", rs.getString("pnr"));
+                    generator.writeStringField("status", rs.getString("status"));
+                    generator.writeStringField("journeyDate", rs.getDate("journey_date").toString());
+                    generator.writeNumberField("totalFare", rs.getBigDecimal("total_fare"));
+                    generator.writeStringField("trainNumber", rs.getString("train_number"));
+                    generator.writeStringField("className", rs.getString("class_name"));
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, userId);
+        }
+    }
+}
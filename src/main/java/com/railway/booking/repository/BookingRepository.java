@@ -3,9 +3,15 @@ package com.railway.booking.repository;
 
 import com.railway.booking.model.Booking;
 import com.railway.booking.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,5 +20,46 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     
     Optional<Booking> findByPnr(String pnr);
     
+    @Query("SELECT b.id, b.holdExpiresAt, b.trainClass.id, b.journeyDate FROM Booking b WHERE b.status = 'PENDING_PAYMENT'")
+    List<Object[]> findPaymentHolds();
+    
+    // The (train class, journey date) a cancellation is routed by
+    @Query("SELECT b.trainClass.id, b.journeyDate FROM Booking b WHERE b.id = :id")
+    List<Object[]> findInventoryKeyById(@Param("id") Long id);
+    
+    // Fetches everything BookingView reads in one statement, including the eager to-one associations
+    @Query("SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.train t JOIN FETCH t.sourceStation JOIN FETCH t.destinationStation " +
+            "JOIN FETCH b.trainClass LEFT JOIN FETCH b.fromStation LEFT JOIN FETCH b.toStation LEFT JOIN FETCH b.payment " +
+            "LEFT JOIN FETCH b.passengers WHERE b.pnr = :pnr")
+    Optional<Booking> findViewByPnr(@Param("pnr") String pnr);
+    
+    @Query("SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.train t JOIN FETCH t.sourceStation JOIN FETCH t.destinationStation " +
+            "JOIN FETCH b.trainClass LEFT JOIN FETCH b.fromStation LEFT JOIN FETCH b.toStation LEFT JOIN FETCH b.payment " +
+            "LEFT JOIN FETCH b.passengers WHERE b.user.id = :userId ORDER BY b.journeyDate DESC, b.id DESC")
+    List<Booking> findViewsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.train t JOIN FETCH t.sourceStation JOIN FETCH t.destinationStation " +
+            "JOIN FETCH b.trainClass LEFT JOIN FETCH b.fromStation LEFT JOIN FETCH b.toStation LEFT JOIN FETCH b.payment " +
+            "LEFT JOIN FETCH b.passengers WHERE b.id IN :ids ORDER BY b.journeyDate, b.id")
+    List<Booking> findViewsByIdIn(@Param("ids") List<Long> ids);
+    
+    // Keyset pages select ids first so the limit applies in SQL, not to a fetch-joined collection
+    @Query("SELECT b.id FROM Booking b WHERE b.user.id = :userId ORDER BY b.journeyDate, b.id")
+    List<Long> findFirstPageIds(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query("SELECT b.id FROM Booking b WHERE b.user.id = :userId " +
+            "AND (b.journeyDate > :afterDate OR (b.journeyDate = :afterDate AND b.id > :afterId)) ORDER BY b.journeyDate, b.id")
+    List<Long> findPageIdsAfter(@Param("userId") Long userId, @Param("afterDate") Date afterDate, @Param("afterId") Long afterId, Pageable pageable);
+    
     List<Booking> findByUser(User user);
+    
+    @EntityGraph(attributePaths = {"passengers"})
+    List<Booking> findByStatusInOrderByIdAsc(List<String> statuses);
+    
+    @Query("SELECT b.pnr FROM Booking b WHERE b.id IN :ids")
+    List<String> findPnrsByIdIn(@Param("ids") List<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :status WHERE b.id IN :ids AND b.status = :expectedStatus")
+    int updateStatus(@Param("ids") List<Long> ids, @Param("expectedStatus") String expectedStatus, @Param("status") String status);
 }
@@ -0,0 +1,23 @@
+
+package com.railway.booking.repository;
+
+import com.railway.booking.model.Passenger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface PassengerRepository extends JpaRepository<Passenger, Long> {
+    
+    @Query("SELECT p.seatNumber AS seatNumber, fs.id AS fromStationId, ts.id AS toStationId FROM Passenger p JOIN p.booking b LEFT JOIN b.fromStation fs LEFT JOIN b.toStation ts " +
+            "WHERE b.trainClass.id = :trainClassId AND b.journeyDate = :journeyDate AND b.status NOT IN ('CANCELLED', 'WAITING', 'RAC')")
+    List<SeatAssignment> findSeatAssignments(@Param("trainClassId") Long trainClassId, @Param("journeyDate") Date journeyDate);
+    
+    @Query("SELECT b.trainClass.id AS trainClassId, p.seatNumber AS seatNumber, fs.id AS fromStationId, ts.id AS toStationId FROM Passenger p JOIN p.booking b LEFT JOIN b.fromStation fs LEFT JOIN b.toStation ts " +
+            "WHERE b.train.id = :trainId AND b.journeyDate = :journeyDate AND b.status NOT IN ('CANCELLED', 'WAITING', 'RAC')")
+    List<TrainSeatAssignment> findTrainSeatAssignments(@Param("trainId") Long trainId, @Param("journeyDate") Date journeyDate);
+}
@@ -0,0 +1,21 @@
+
+package com.railway.booking.repository;
+
+import com.railway.booking.model.Payment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentRepository extends JpaRepository<Payment, Long> {
+    
+    @EntityGraph(attributePaths = "booking")
+    Optional<Payment> findByTransactionId(String transactionId);
+    
+    List<Payment> findByStatusAndPaymentDateBeforeOrderByIdAsc(String status, Date before, Pageable pageable);
+}
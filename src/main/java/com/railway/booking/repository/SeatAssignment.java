@@ -0,0 +1,11 @@
+
+package com.railway.booking.repository;
+
+public interface SeatAssignment {
+    
+    String getSeatNumber();
+    
+    Long getFromStationId();
+    
+    Long getToStationId();
+}
@@ -3,8 +3,10 @@ package com.railway.booking.repository;
 
 import com.railway.booking.model.Station;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +15,14 @@ public interface StationRepository extends JpaRepository<Station, Long> {
     Optional<Station> findByCode(String code);
     
     List<Station> findByNameContainingIgnoreCase(String name);
+    
+    // Trains calling at each station; point-to-point trains have no stops and are counted below
+    @Query("SELECT ts.station.id, COUNT(DISTINCT ts.train.id) FROM TrainStop ts GROUP BY ts.station.id")
+    List<Object[]> countCallingTrains();
+    
+    @Query("SELECT t.sourceStation.id, COUNT(t) FROM Train t WHERE t.stops IS EMPTY GROUP BY t.sourceStation.id")
+    List<Object[]> countPointToPointDepartures();
+    
+    @Query("SELECT t.destinationStation.id, COUNT(t) FROM Train t WHERE t.stops IS EMPTY GROUP BY t.destinationStation.id")
+    List<Object[]> countPointToPointArrivals();
 }
@@ -0,0 +1,31 @@
+
+package com.railway.booking.repository;
+
+import com.railway.booking.model.TrainClass;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface TrainClassRepository extends JpaRepository<TrainClass, Long> {
+    
+    List<TrainClass> findByTrainId(Long trainId);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE TrainClass tc SET tc.availableSeats = tc.availableSeats + :delta, tc.version = tc.version + 1 WHERE tc.id = :id")
+    int adjustAvailableSeats(@Param("id") Long id, @Param("delta") int delta);
+    
+    // Classes created before totalSeats existed: their class-wide count has had every seated passenger taken off it.
+    // MySQL fills a column added as NOT NULL with 0 rather than NULL, so 0 is treated as missing too
+    @Modifying
+    @Transactional
+    @Query("UPDATE TrainClass tc SET tc.totalSeats = tc.availableSeats + (SELECT COUNT(p) FROM Passenger p JOIN p.booking b " +
+            "WHERE b.trainClass = tc AND b.status NOT IN ('CANCELLED', 'WAITING', 'RAC')) WHERE tc.totalSeats IS NULL OR tc.totalSeats = 0")
+    int backfillTotalSeats();
+}
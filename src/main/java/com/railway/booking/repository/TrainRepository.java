@@ -3,18 +3,31 @@ package com.railway.booking.repository;
 
 import com.railway.booking.model.Train;
 import com.railway.booking.model.Station;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TrainRepository extends JpaRepository<Train, Long> {
     
     List<Train> findBySourceStationAndDestinationStation(Station source, Station destination);
     
-    @Query("SELECT t FROM Train t JOIN t.trainClasses tc WHERE t.sourceStation.id = :sourceId AND t.destinationStation.id = :destId AND tc.availableSeats >= :passengers")
+    @Query("SELECT t FROM Train t JOIN t.trainClasses tc WHERE tc.availableSeats >= :passengers AND " +
+            "((t.sourceStation.id = :sourceId AND t.destinationStation.id = :destId) OR EXISTS (" +
+            "SELECT a FROM TrainStop a, TrainStop b WHERE a.train = t AND b.train = t " +
+            "AND a.station.id = :sourceId AND b.station.id = :destId AND a.stopSequence < b.stopSequence))")
     List<Train> findAvailableTrains(Long sourceId, Long destId, Integer passengers);
+    
+    @EntityGraph(attributePaths = {"trainClasses", "stops", "stops.station", "sourceStation", "destinationStation"})
+    @Query("SELECT DISTINCT t FROM Train t")
+    List<Train> findAllWithSchedule();
+    
+    @EntityGraph(attributePaths = {"trainClasses", "stops", "stops.station", "sourceStation", "destinationStation"})
+    @Query("SELECT t FROM Train t WHERE t.id = :id")
+    Optional<Train> findWithScheduleById(Long id);
 }
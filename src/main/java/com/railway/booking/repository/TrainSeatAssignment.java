@@ -0,0 +1,7 @@
+
+package com.railway.booking.repository;
+
+public interface TrainSeatAssignment extends SeatAssignment {
+    
+    Long getTrainClassId();
+}
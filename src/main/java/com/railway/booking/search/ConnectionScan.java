@@ -0,0 +1,112 @@
+
+package com.railway.booking.search;
+
+import com.railway.booking.dto.Itinerary;
+import com.railway.booking.dto.ItineraryLeg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Connection Scan Algorithm with one round per train used, giving the Pareto set of
+ * (arrival time, transfers) journeys in a single pass over the sorted connections.
+ */
+public final class ConnectionScan {
+    
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    
+    private ConnectionScan() {
+    }
+    
+    public static List<Itinerary> search(Timetable timetable, long sourceId, long destinationId, int departAfter,
+                                         int maxTransfers, int minConnectionMinutes) {
+        int source = timetable.stationIndex(sourceId);
+        int target = timetable.stationIndex(destinationId);
+        if (source < 0 || target < 0 || source == target) {
+            return Collections.emptyList();
+        }
+        int rounds = maxTransfers + 1;
+        int stations = timetable.stationCount();
+        int trips = timetable.trainIds.length;
+        
+        // Per round: earliest arrival at each station and the train ride that achieved it
+        int[][] arrival = new int[rounds][stations];
+        int[][] boardedAt = new int[rounds][stations];
+        int[][] alightedAt = new int[rounds][stations];
+        int[][] tripBoarding = new int[rounds][trips];
+        for (int k = 0; k < rounds; k++) {
+            Arrays.fill(arrival[k], UNREACHED);
+            Arrays.fill(tripBoarding[k], -1);
+        }
+        // Per round: earliest arrival at the target using at most that many trains. A connection
+        // leaving at or after it cannot give round k a journey worth keeping, and once it rules
+        // out round 0 it rules out every round.
+        int[] bestAtTarget = new int[rounds];
+        Arrays.fill(bestAtTarget, UNREACHED);
+        
+        for (int c = timetable.firstDepartureAtOrAfter(departAfter); c < timetable.size(); c++) {
+            int departure = timetable.departureTime[c];
+            if (departure >= bestAtTarget[0]) {
+                break;
+            }
+            int from = timetable.departureStation[c];
+            int to = timetable.arrivalStation[c];
+            int trip = timetable.trip[c];
+            // Walk rounds downwards so this connection's own arrival cannot feed a transfer onto itself
+            for (int k = rounds - 1; k >= 0; k--) {
+                if (departure >= bestAtTarget[k]) {
+                    continue;
+                }
+                if (tripBoarding[k][trip] < 0) {
+                    boolean canBoard = k == 0
+                            ? from == source
+                            : arrival[k - 1][from] != UNREACHED && arrival[k - 1][from] + minConnectionMinutes <= departure;
+                    if (!canBoard) {
+                        continue;
+                    }
+                    tripBoarding[k][trip] = c;
+                }
+                int arrivalTime = timetable.arrivalTime[c];
+                if (arrivalTime < arrival[k][to]) {
+                    arrival[k][to] = arrivalTime;
+                    boardedAt[k][to] = tripBoarding[k][trip];
+                    alightedAt[k][to] = c;
+                    for (int j = k; to == target && j < rounds; j++) {
+                        bestAtTarget[j] = Math.min(bestAtTarget[j], arrivalTime);
+                    }
+                }
+            }
+        }
+        
+        List<Itinerary> itineraries = new ArrayList<>();
+        int bestSoFar = UNREACHED;
+        for (int k = 0; k < rounds; k++) {
+            if (arrival[k][target] < bestSoFar) {
+                bestSoFar = arrival[k][target];
+                itineraries.add(reconstruct(timetable, boardedAt, alightedAt, k, target));
+            }
+        }
+        return itineraries;
+    }
+    
+    private static Itinerary reconstruct(Timetable timetable, int[][] boardedAt, int[][] alightedAt, int round, int target) {
+        ItineraryLeg[] legs = new ItineraryLeg[round + 1];
+        int station = target;
+        int firstDeparture = 0;
+        for (int k = round; k >= 0; k--) {
+            int board = boardedAt[k][station];
+            int alight = alightedAt[k][station];
+            legs[k] = new ItineraryLeg(timetable.trainIds[timetable.trip[board]],
+                    timetable.stationIds[timetable.departureStation[board]],
+                    timetable.stationIds[timetable.arrivalStation[alight]],
+                    Timetable.formatMinutes(timetable.departureTime[board]),
+                    Timetable.formatMinutes(timetable.arrivalTime[alight]));
+            firstDeparture = timetable.departureTime[board];
+            station = timetable.departureStation[board];
+        }
+        int lastArrival = timetable.arrivalTime[alightedAt[round][target]];
+        return new Itinerary(round, lastArrival - firstDeparture, Arrays.asList(legs));
+    }
+}
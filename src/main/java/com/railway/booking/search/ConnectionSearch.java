@@ -0,0 +1,86 @@
+
+package com.railway.booking.search;
+
+import com.railway.booking.dto.Itinerary;
+import com.railway.booking.event.TrainScheduleChangedEvent;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainStop;
+import com.railway.booking.repository.TrainRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Holds the current {@link Timetable} and answers connecting-journey queries against it.
+ * Schedule changes only mark the timetable stale; it is rebuilt once, on the next query.
+ */
+@Component
+public class ConnectionSearch {
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Value("${booking.search.min-connection-minutes:15}")
+    private int minConnectionMinutes;
+    
+    @Value("${booking.search.max-transfers:2}")
+    private int maxTransfers;
+    
+    private volatile Timetable timetable;
+    
+    public List<Itinerary> search(Long sourceId, Long destinationId, int departAfter, int transfers) {
+        return ConnectionScan.search(currentTimetable(), sourceId, destinationId, departAfter,
+                Math.min(transfers, maxTransfers), minConnectionMinutes);
+    }
+    
+    // Synchronized so a load that started before the change cannot publish stale data after it
+    @EventListener
+    public synchronized void onScheduleChanged(TrainScheduleChangedEvent event) {
+        timetable = null;
+    }
+    
+    private Timetable currentTimetable() {
+        Timetable current = timetable;
+        if (current == null) {
+            synchronized (this) {
+                current = timetable;
+                if (current == null) {
+                    current = load();
+                    timetable = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    private Timetable load() {
+        TimetableBuilder builder = new TimetableBuilder();
+        for (Train train : trainRepository.findAllWithSchedule()) {
+            List<TrainStop> stops = train.getStops();
+            if (stops.size() > 2) {
+                long[] stationIds = new long[stops.size()];
+                int[] arrivals = new int[stops.size()];
+                int[] departures = new int[stops.size()];
+                for (int i = 0; i < stops.size(); i++) {
+                    TrainStop stop = stops.get(i);
+                    String arrival = stop.getArrivalTime() != null ? stop.getArrivalTime() : stop.getDepartureTime();
+                    String departure = stop.getDepartureTime() != null ? stop.getDepartureTime() : arrival;
+                    stationIds[i] = stop.getStation().getId();
+                    arrivals[i] = Timetable.parseMinutes(arrival);
+                    departures[i] = Timetable.parseMinutes(departure);
+                }
+                builder.addTrip(train.getId(), stationIds, arrivals, departures);
+            } else {
+                int departure = Timetable.parseMinutes(train.getDepartureTime());
+                int arrival = Timetable.parseMinutes(train.getArrivalTime());
+                builder.addTrip(train.getId(),
+                        new long[] {train.getSourceStation().getId(), train.getDestinationStation().getId()},
+                        new int[] {departure, arrival}, new int[] {departure, arrival});
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,283 @@
+
+package com.railway.booking.search;
+
+import com.railway.booking.dto.ClassAvailability;
+import com.railway.booking.dto.TrainSearchResult;
+import com.railway.booking.event.TrainScheduleChangedEvent;
+import com.railway.booking.fare.FareEngine;
+import com.railway.booking.fare.FareTable;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.TrainStop;
+import com.railway.booking.repository.TrainRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Every (boarding station, alighting station) pair a train serves, mapped to the trains
+ * that serve it. Readers take the whole {@link Index} with one volatile read and never lock.
+ * A schedule change copies the index, replaces the train's pairs in the copy and publishes
+ * it in one swap, so a search sees the train either as it was or as it is, never missing.
+ */
+@Component
+public class RouteIndex {
+    
+    private static final Comparator<RouteEntry> BY_DEPARTURE =
+            Comparator.comparing(RouteEntry::departureTime, Comparator.nullsLast(Comparator.naturalOrder()));
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Autowired
+    private FareEngine fareEngine;
+    
+    private volatile Index index = new Index();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Index next = new Index();
+        for (Train train : trainRepository.findAllWithSchedule()) {
+            next.add(train);
+        }
+        index = next;
+    }
+    
+    @EventListener
+    public synchronized void onScheduleChanged(TrainScheduleChangedEvent event) {
+        Index next = new Index(index);
+        next.remove(event.getTrainId());
+        if (!event.isDeleted()) {
+            trainRepository.findWithScheduleById(event.getTrainId()).ifPresent(next::add);
+        }
+        index = next;
+    }
+    
+    /**
+     * Trains serving the pair, each with the classes that can seat the party and their adult
+     * fare for the searched stops. With a {@link SeatCounter} the counts are for one journey
+     * date; without one they are the class-wide counters kept by the inventory writer.
+     */
+    public List<TrainSearchResult> search(Long sourceId, Long destinationId, int passengers, SeatCounter counter) {
+        RouteEntry[] entries = index.routes.get(new RouteKey(sourceId, destinationId));
+        if (entries == null) {
+            return Collections.emptyList();
+        }
+        List<TrainSearchResult> results = new ArrayList<>(entries.length);
+        for (RouteEntry entry : entries) {
+            IndexedTrain train = entry.train;
+            List<ClassAvailability> available = new ArrayList<>(train.classes.length);
+            for (IndexedClass trainClass : train.classes) {
+                int seats = counter != null
+                        ? counter.available(train.id, trainClass.id, entry.fromStop, entry.toStop)
+                        : trainClass.availableSeats.get();
+                if (seats >= passengers) {
+                    available.add(new ClassAvailability(trainClass.id, trainClass.className, seats,
+                            fare(trainClass, entry, counter != null ? seats : -1)));
+                }
+            }
+            if (!available.isEmpty()) {
+                results.add(new TrainSearchResult(train.id, train.number, train.name, sourceId, destinationId,
+                        entry.departureTime(), entry.arrivalTime(), available));
+            }
+        }
+        return results;
+    }
+    
+    public void adjustAvailableSeats(Long trainClassId, int delta) {
+        IndexedClass trainClass = index.classes.get(trainClassId);
+        if (trainClass != null) {
+            trainClass.availableSeats.addAndGet(delta);
+        }
+    }
+    
+    // Surge only applies when the seats are for a known date; otherwise the base fare for the stops
+    private BigDecimal fare(IndexedClass trainClass, RouteEntry entry, int seats) {
+        FareTable table = fareEngine.table(trainClass.id);
+        if (table == null) {
+            return trainClass.fare;
+        }
+        return FareEngine.toRupees(fareEngine.quote(table, entry.fromStop, entry.toStop,
+                seats >= 0 ? seats : table.getCapacity(), -1));
+    }
+    
+    private static RouteEntry[] insertSorted(RouteEntry[] existing, RouteEntry[] added) {
+        RouteEntry[] merged = Arrays.copyOf(existing, existing.length + added.length);
+        System.arraycopy(added, 0, merged, existing.length, added.length);
+        Arrays.sort(merged, BY_DEPARTURE);
+        return merged;
+    }
+    
+    // Only written before it is published; after that the maps and the arrays in them never change
+    private static final class Index {
+        
+        private final Map<RouteKey, RouteEntry[]> routes;
+        private final Map<Long, IndexedTrain> trains;
+        private final Map<Long, IndexedClass> classes;
+        
+        Index() {
+            this.routes = new HashMap<>();
+            this.trains = new HashMap<>();
+            this.classes = new HashMap<>();
+        }
+        
+        Index(Index current) {
+            this.routes = new HashMap<>(current.routes);
+            this.trains = new HashMap<>(current.trains);
+            this.classes = new HashMap<>(current.classes);
+        }
+        
+        void add(Train train) {
+            IndexedTrain indexed = new IndexedTrain(train);
+            trains.put(indexed.id, indexed);
+            for (IndexedClass trainClass : indexed.classes) {
+                classes.put(trainClass.id, trainClass);
+            }
+            for (int from = 0; from < indexed.stationIds.length; from++) {
+                for (int to = from + 1; to < indexed.stationIds.length; to++) {
+                    RouteKey key = new RouteKey(indexed.stationIds[from], indexed.stationIds[to]);
+                    // A route that passes a station twice is indexed once, from its first visit
+                    if (indexed.keys.add(key)) {
+                        RouteEntry entry = new RouteEntry(indexed, from, to);
+                        routes.merge(key, new RouteEntry[] {entry}, RouteIndex::insertSorted);
+                    }
+                }
+            }
+        }
+        
+        void remove(Long trainId) {
+            IndexedTrain indexed = trains.remove(trainId);
+            if (indexed == null) {
+                return;
+            }
+            for (IndexedClass trainClass : indexed.classes) {
+                classes.remove(trainClass.id);
+            }
+            for (RouteKey key : indexed.keys) {
+                routes.computeIfPresent(key, (k, entries) -> {
+                    RouteEntry[] kept = Arrays.stream(entries)
+                            .filter(entry -> entry.train != indexed)
+                            .toArray(RouteEntry[]::new);
+                    return kept.length == 0 ? null : kept;
+                });
+            }
+        }
+    }
+    
+    // Seats left on one class between two stops; search passes one bound to the journey date
+    public interface SeatCounter {
+        
+        int available(Long trainId, Long trainClassId, int fromStop, int toStop);
+    }
+    
+    private static final class RouteKey {
+        
+        private final long sourceId;
+        private final long destinationId;
+        
+        RouteKey(long sourceId, long destinationId) {
+            this.sourceId = sourceId;
+            this.destinationId = destinationId;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RouteKey)) {
+                return false;
+            }
+            RouteKey that = (RouteKey) o;
+            return sourceId == that.sourceId && destinationId == that.destinationId;
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(sourceId) + Long.hashCode(destinationId);
+        }
+    }
+    
+    private static final class RouteEntry {
+        
+        private final IndexedTrain train;
+        private final int fromStop;
+        private final int toStop;
+        
+        RouteEntry(IndexedTrain train, int fromStop, int toStop) {
+            this.train = train;
+            this.fromStop = fromStop;
+            this.toStop = toStop;
+        }
+        
+        String departureTime() {
+            return train.departureTimes[fromStop];
+        }
+        
+        String arrivalTime() {
+            return train.arrivalTimes[toStop];
+        }
+    }
+    
+    private static final class IndexedTrain {
+        
+        private final Long id;
+        private final String number;
+        private final String name;
+        private final long[] stationIds;
+        private final String[] departureTimes;
+        private final String[] arrivalTimes;
+        private final IndexedClass[] classes;
+        private final Set<RouteKey> keys = new HashSet<>();
+        
+        IndexedTrain(Train train) {
+            this.id = train.getId();
+            this.number = train.getNumber();
+            this.name = train.getName();
+            List<TrainStop> stops = train.getStops();
+            if (stops.size() > 2) {
+                stationIds = new long[stops.size()];
+                departureTimes = new String[stops.size()];
+                arrivalTimes = new String[stops.size()];
+                for (int i = 0; i < stops.size(); i++) {
+                    TrainStop stop = stops.get(i);
+                    stationIds[i] = stop.getStation().getId();
+                    departureTimes[i] = stop.getDepartureTime();
+                    arrivalTimes[i] = stop.getArrivalTime();
+                }
+            } else {
+                stationIds = new long[] {train.getSourceStation().getId(), train.getDestinationStation().getId()};
+                departureTimes = new String[] {train.getDepartureTime(), null};
+                arrivalTimes = new String[] {null, train.getArrivalTime()};
+            }
+            this.classes = train.getTrainClasses().stream()
+                    .map(IndexedClass::new)
+                    .toArray(IndexedClass[]::new);
+        }
+    }
+    
+    private static final class IndexedClass {
+        
+        private final Long id;
+        private final String className;
+        private final BigDecimal fare;
+        private final AtomicInteger availableSeats;
+        
+        IndexedClass(TrainClass trainClass) {
+            this.id = trainClass.getId();
+            this.className = trainClass.getClassName();
+            this.fare = trainClass.getFare();
+            this.availableSeats = new AtomicInteger(trainClass.getAvailableSeats());
+        }
+    }
+}
@@ -0,0 +1,219 @@
+
+package com.railway.booking.search;
+
+import com.railway.booking.dto.StationSuggestion;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable autocomplete over station codes, names and cities. Stations are numbered by
+ * popularity, and every trie node keeps the first {@link #MAX_RESULTS} stations under it,
+ * so a prefix lookup costs the length of the query whatever the station count. When the
+ * prefixes run short, stations containing enough of the query's trigrams fill the rest,
+ * which catches misspellings.
+ */
+public final class StationAutocomplete {
+    
+    public static final int MAX_RESULTS = 20;
+    
+    // Share of the query's trigrams a station must contain to be offered as a fuzzy match
+    private static final double MIN_SIMILARITY = 0.5;
+    
+    private final StationSuggestion[] stations;
+    private final Node root;
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final Map<String, int[]> trigrams = new HashMap<>();
+    
+    public StationAutocomplete(List<StationSuggestion> stations, Map<Long, Integer> popularity) {
+        this.stations = stations.stream()
+                .sorted(Comparator.<StationSuggestion>comparingInt(station -> -popularity.getOrDefault(station.getId(), 0))
+                        .thenComparing(StationSuggestion::getName))
+                .toArray(StationSuggestion[]::new);
+        
+        BuildNode buildRoot = new BuildNode();
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int i = 0; i < this.stations.length; i++) {
+            StationSuggestion station = this.stations[i];
+            codes.putIfAbsent(normalize(station.getCode()), i);
+            Set<String> grams = new LinkedHashSet<>();
+            for (String field : new String[] {station.getCode(), station.getName(), station.getCity()}) {
+                String text = normalize(field);
+                if (text.isEmpty()) {
+                    continue;
+                }
+                // Every word start is a prefix entry point: "delhi jn" is found by "del" and "jn"
+                for (int start = 0; start >= 0; start = nextWord(text, start)) {
+                    buildRoot.insert(text, start, i);
+                }
+                addTrigrams(" " + text + " ", grams);
+            }
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+            }
+        }
+        this.root = buildRoot.freeze();
+        postings.forEach((gram, ids) -> trigrams.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+    }
+    
+    public int size() {
+        return stations.length;
+    }
+    
+    public List<StationSuggestion> suggest(String query, int limit) {
+        String text = normalize(query);
+        limit = Math.max(1, Math.min(limit, MAX_RESULTS));
+        if (text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<StationSuggestion> results = new ArrayList<>(limit);
+        boolean[] taken = new boolean[stations.length];
+        
+        // A station code typed in full beats any popularity ranking
+        Integer code = codes.get(text);
+        if (code != null) {
+            taken[code] = true;
+            results.add(stations[code]);
+        }
+        Node node = root.find(text);
+        if (node != null) {
+            for (int i = 0; i < node.top.length && results.size() < limit; i++) {
+                if (!taken[node.top[i]]) {
+                    taken[node.top[i]] = true;
+                    results.add(stations[node.top[i]]);
+                }
+            }
+        }
+        if (results.size() < limit && text.length() >= 3) {
+            for (int station : fuzzy(text)) {
+                if (results.size() == limit) {
+                    break;
+                }
+                if (!taken[station]) {
+                    taken[station] = true;
+                    results.add(stations[station]);
+                }
+            }
+        }
+        return results;
+    }
+    
+    // Stations by how many query trigrams they contain, best first; ties go to the more popular station
+    private int[] fuzzy(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        // Only the start is padded: the user may still be typing the end of the word
+        addTrigrams(" " + text, grams);
+        int[] shared = new int[stations.length];
+        int[] candidates = new int[stations.length];
+        int candidateCount = 0;
+        for (String gram : grams) {
+            int[] posting = trigrams.get(gram);
+            if (posting == null) {
+                continue;
+            }
+            for (int station : posting) {
+                if (shared[station]++ == 0) {
+                    candidates[candidateCount++] = station;
+                }
+            }
+        }
+        int needed = (int) Math.ceil(grams.size() * MIN_SIMILARITY);
+        int kept = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            if (shared[candidates[i]] >= needed) {
+                candidates[kept++] = candidates[i];
+            }
+        }
+        int[] ranked = Arrays.copyOf(candidates, kept);
+        // Sort on (shared desc, station asc) packed into one long, avoiding boxed comparators
+        long[] keys = new long[kept];
+        for (int i = 0; i < kept; i++) {
+            keys[i] = ((long) (Integer.MAX_VALUE - shared[ranked[i]]) << 32) | ranked[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < kept; i++) {
+            ranked[i] = (int) keys[i];
+        }
+        return ranked;
+    }
+    
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return plain.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", " ").trim();
+    }
+    
+    private static int nextWord(String text, int start) {
+        int space = text.indexOf(' ', start);
+        return space < 0 ? -1 : space + 1;
+    }
+    
+    private static void addTrigrams(String text, Set<String> grams) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+    }
+    
+    private static final class BuildNode {
+        
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        private final int[] top = new int[MAX_RESULTS];
+        private int size;
+        
+        // Stations arrive in popularity order, so the first ones to reach a node are its best
+        void insert(String text, int start, int station) {
+            BuildNode node = this;
+            for (int i = start; i < text.length(); i++) {
+                node = node.children.computeIfAbsent(text.charAt(i), c -> new BuildNode());
+                if (node.size < MAX_RESULTS && (node.size == 0 || node.top[node.size - 1] != station)) {
+                    node.top[node.size++] = station;
+                }
+            }
+        }
+        
+        Node freeze() {
+            char[] keys = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, BuildNode> child : children.entrySet()) {
+                keys[i] = child.getKey();
+                frozen[i++] = child.getValue().freeze();
+            }
+            return new Node(keys, frozen, Arrays.copyOf(top, size));
+        }
+    }
+    
+    private static final class Node {
+        
+        private final char[] keys;
+        private final Node[] children;
+        private final int[] top;
+        
+        Node(char[] keys, Node[] children, int[] top) {
+            this.keys = keys;
+            this.children = children;
+            this.top = top;
+        }
+        
+        Node find(String text) {
+            Node node = this;
+            for (int i = 0; i < text.length() && node != null; i++) {
+                int index = Arrays.binarySearch(node.keys, text.charAt(i));
+                node = index >= 0 ? node.children[index] : null;
+            }
+            return node;
+        }
+    }
+}
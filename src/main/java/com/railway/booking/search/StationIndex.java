@@ -0,0 +1,60 @@
+
+package com.railway.booking.search;
+
+import com.railway.booking.dto.StationSuggestion;
+import com.railway.booking.event.TrainScheduleChangedEvent;
+import com.railway.booking.model.Station;
+import com.railway.booking.repository.StationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Serves station autocomplete from a {@link StationAutocomplete} built off the request path.
+ * Lookups never reach the database; rebuilds replace the whole structure in one write.
+ */
+@Component
+public class StationIndex {
+    
+    @Autowired
+    private StationRepository stationRepository;
+    
+    private volatile StationAutocomplete autocomplete = new StationAutocomplete(Collections.emptyList(), Collections.emptyMap());
+    
+    public List<StationSuggestion> suggest(String query, int limit) {
+        return autocomplete.suggest(query, limit);
+    }
+    
+    // Popularity is the number of trains serving a station, so schedule changes trigger a rebuild too
+    @EventListener({ApplicationReadyEvent.class, TrainScheduleChangedEvent.class})
+    @Scheduled(fixedDelayString = "${booking.stations.refresh-interval-ms:600000}",
+            initialDelayString = "${booking.stations.refresh-interval-ms:600000}")
+    public synchronized void rebuild() {
+        List<StationSuggestion> stations = stationRepository.findAll().stream()
+                .map(StationIndex::toSuggestion)
+                .collect(Collectors.toList());
+        Map<Long, Integer> popularity = new HashMap<>();
+        count(popularity, stationRepository.countCallingTrains());
+        count(popularity, stationRepository.countPointToPointDepartures());
+        count(popularity, stationRepository.countPointToPointArrivals());
+        autocomplete = new StationAutocomplete(stations, popularity);
+    }
+    
+    private static void count(Map<Long, Integer> popularity, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            popularity.merge((Long) row[0], ((Number) row[1]).intValue(), Integer::sum);
+        }
+    }
+    
+    private static StationSuggestion toSuggestion(Station station) {
+        return new StationSuggestion(station.getId(), station.getCode(), station.getName(), station.getCity(), station.getState());
+    }
+}
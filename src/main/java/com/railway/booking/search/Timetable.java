@@ -0,0 +1,74 @@
+
+package com.railway.booking.search;
+
+import java.util.Arrays;
+
+/**
+ * Elementary connections (one train between two consecutive stops) in primitive arrays,
+ * sorted by departure. Times are minutes after midnight of the train's origin day, so an
+ * overnight leg simply has an arrival past 1440.
+ */
+public final class Timetable {
+    
+    final long[] stationIds;
+    final long[] trainIds;
+    final int[] departureStation;
+    final int[] arrivalStation;
+    final int[] departureTime;
+    final int[] arrivalTime;
+    final int[] trip;
+    final int[] departureStop;
+    final int[] arrivalStop;
+    
+    Timetable(long[] stationIds, long[] trainIds, int[] departureStation, int[] arrivalStation, int[] departureTime,
+              int[] arrivalTime, int[] trip, int[] departureStop, int[] arrivalStop) {
+        this.stationIds = stationIds;
+        this.trainIds = trainIds;
+        this.departureStation = departureStation;
+        this.arrivalStation = arrivalStation;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.trip = trip;
+        this.departureStop = departureStop;
+        this.arrivalStop = arrivalStop;
+    }
+    
+    public int size() {
+        return departureTime.length;
+    }
+    
+    public int stationCount() {
+        return stationIds.length;
+    }
+    
+    int stationIndex(long stationId) {
+        return Arrays.binarySearch(stationIds, stationId);
+    }
+    
+    /**
+     * First connection departing at or after {@code minute}.
+     */
+    int firstDepartureAtOrAfter(int minute) {
+        int low = 0;
+        int high = departureTime.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departureTime[mid] < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    public static int parseMinutes(String time) {
+        int colon = time.indexOf(':');
+        return Integer.parseInt(time.substring(0, colon)) * 60 + Integer.parseInt(time.substring(colon + 1, colon + 3));
+    }
+    
+    public static String formatMinutes(int minutes) {
+        int minuteOfDay = minutes % 1440;
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+}
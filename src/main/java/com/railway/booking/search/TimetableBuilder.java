@@ -0,0 +1,115 @@
+
+package com.railway.booking.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Collects trips and flattens them into a {@link Timetable}. Every trip is laid out for two
+ * consecutive service days so that evening searches can connect into next-morning trains.
+ */
+public class TimetableBuilder {
+    
+    private static final int SERVICE_DAYS = 2;
+    
+    private final List<long[]> tripStations = new ArrayList<>();
+    private final List<int[]> tripArrivals = new ArrayList<>();
+    private final List<int[]> tripDepartures = new ArrayList<>();
+    private final List<Long> tripTrainIds = new ArrayList<>();
+    
+    /**
+     * Adds one train run. Times are minutes after midnight; a time earlier than the previous
+     * stop is taken to be on the following day.
+     */
+    public TimetableBuilder addTrip(long trainId, long[] stationIds, int[] arrivals, int[] departures) {
+        int[] arrivalTimes = new int[stationIds.length];
+        int[] departureTimes = new int[stationIds.length];
+        int dayOffset = 0;
+        int previous = Integer.MIN_VALUE;
+        for (int i = 0; i < stationIds.length; i++) {
+            int arrival = arrivals[i] + dayOffset;
+            if (arrival < previous) {
+                dayOffset += 1440;
+                arrival += 1440;
+            }
+            int departure = departures[i] + dayOffset;
+            if (departure < arrival) {
+                dayOffset += 1440;
+                departure += 1440;
+            }
+            arrivalTimes[i] = arrival;
+            departureTimes[i] = departure;
+            previous = departure;
+        }
+        tripStations.add(stationIds);
+        tripArrivals.add(arrivalTimes);
+        tripDepartures.add(departureTimes);
+        tripTrainIds.add(trainId);
+        return this;
+    }
+    
+    public Timetable build() {
+        TreeSet<Long> stations = new TreeSet<>();
+        int connections = 0;
+        for (long[] stationIds : tripStations) {
+            for (long stationId : stationIds) {
+                stations.add(stationId);
+            }
+            connections += stationIds.length - 1;
+        }
+        long[] stationIds = stations.stream().mapToLong(Long::longValue).toArray();
+        int trips = tripStations.size();
+        int total = connections * SERVICE_DAYS;
+        
+        int[] departureStation = new int[total];
+        int[] arrivalStation = new int[total];
+        int[] departureTime = new int[total];
+        int[] arrivalTime = new int[total];
+        int[] trip = new int[total];
+        int[] departureStop = new int[total];
+        int[] arrivalStop = new int[total];
+        long[] trainIds = new long[trips * SERVICE_DAYS];
+        
+        int c = 0;
+        for (int day = 0; day < SERVICE_DAYS; day++) {
+            for (int t = 0; t < trips; t++) {
+                int tripIndex = day * trips + t;
+                trainIds[tripIndex] = tripTrainIds.get(t);
+                long[] route = tripStations.get(t);
+                for (int stop = 0; stop + 1 < route.length; stop++) {
+                    departureStation[c] = Arrays.binarySearch(stationIds, route[stop]);
+                    arrivalStation[c] = Arrays.binarySearch(stationIds, route[stop + 1]);
+                    departureTime[c] = tripDepartures.get(t)[stop] + day * 1440;
+                    arrivalTime[c] = tripArrivals.get(t)[stop + 1] + day * 1440;
+                    trip[c] = tripIndex;
+                    departureStop[c] = stop;
+                    arrivalStop[c] = stop + 1;
+                    c++;
+                }
+            }
+        }
+        
+        // Sort all columns by departure time through an index permutation
+        Integer[] order = new Integer[total];
+        for (int i = 0; i < total; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> departureTime[a] != departureTime[b]
+                ? Integer.compare(departureTime[a], departureTime[b])
+                : Integer.compare(arrivalTime[a], arrivalTime[b]));
+        return new Timetable(stationIds, trainIds,
+                permute(departureStation, order), permute(arrivalStation, order),
+                permute(departureTime, order), permute(arrivalTime, order),
+                permute(trip, order), permute(departureStop, order), permute(arrivalStop, order));
+    }
+    
+    private static int[] permute(int[] values, Integer[] order) {
+        int[] sorted = new int[values.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = values[order[i]];
+        }
+        return sorted;
+    }
+}
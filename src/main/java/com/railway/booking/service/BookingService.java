@@ -1,7 +1,12 @@
 
 package com.railway.booking.service;
 
+import com.railway.booking.dto.BookingPage;
+import com.railway.booking.dto.BookingView;
 import com.railway.booking.model.Booking;
+import com.railway.booking.model.Passenger;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Date;
 import java.util.List;
 
@@ -9,11 +14,19 @@ public interface BookingService {
     
     Booking createBooking(Long userId, Long trainId, Long trainClassId, Date journeyDate, List<Passenger> passengers);
     
+    Booking createBooking(Long userId, Long trainId, Long trainClassId, Date journeyDate, Long fromStationId, Long toStationId, List<Passenger> passengers);
+    
+    Booking createBookingFromHold(Long userId, String holdId, List<Passenger> passengers);
+    
     Booking getBookingById(Long id);
     
-    Booking getBookingByPnr(String pnr);
+    BookingView getBookingByPnr(String pnr);
+    
+    List<BookingView> getBookingsByUser(Long userId);
+    
+    BookingPage getBookingPage(Long userId, Date afterDate, Long afterId, int size);
     
-    List<Booking> getBookingsByUser(Long userId);
+    void exportBookings(Long userId, OutputStream out) throws IOException;
     
     Booking updateBookingStatus(Long id, String status);
     
@@ -0,0 +1,12 @@
+
+package com.railway.booking.service;
+
+import com.railway.booking.dto.BookingRequest;
+import com.railway.booking.dto.BulkBookingResult;
+
+import java.util.List;
+
+public interface BulkBookingService {
+    
+    List<BulkBookingResult> createBookings(List<BookingRequest> requests);
+}
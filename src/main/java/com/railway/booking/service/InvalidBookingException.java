@@ -0,0 +1,15 @@
+
+package com.railway.booking.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidBookingException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public InvalidBookingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+
+package com.railway.booking.service;
+
+import com.railway.booking.model.Payment;
+
+public interface PaymentService {
+    
+    Payment initiatePayment(Long bookingId, String paymentMethod, String transactionId);
+    
+    Payment getPaymentById(Long id);
+    
+    Payment getPaymentByTransactionId(String transactionId);
+    
+    Payment settle(String transactionId, String outcome);
+    
+    int reconcilePending();
+    
+    int expireHolds();
+}
@@ -0,0 +1,11 @@
+
+package com.railway.booking.service;
+
+import com.railway.booking.dto.StationSuggestion;
+
+import java.util.List;
+
+public interface StationService {
+    
+    List<StationSuggestion> autocomplete(String query, Integer limit);
+}
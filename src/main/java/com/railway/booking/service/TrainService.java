@@ -1,17 +1,23 @@
 
 package com.railway.booking.service;
 
+import com.railway.booking.cache.CatalogSnapshot;
+import com.railway.booking.dto.Itinerary;
+import com.railway.booking.dto.TrainSearchResult;
+import com.railway.booking.dto.TrainView;
 import com.railway.booking.model.Train;
 import java.util.Date;
 import java.util.List;
 
 public interface TrainService {
     
-    List<Train> getAllTrains();
+    CatalogSnapshot getCatalog();
     
-    Train getTrainById(Long id);
+    TrainView getTrainById(Long id);
     
-    List<Train> searchTrains(Long sourceId, Long destinationId, Integer passengers);
+    List<TrainSearchResult> searchTrains(Long sourceId, Long destinationId, Integer passengers, Date journeyDate);
+    
+    List<Itinerary> searchConnections(Long sourceId, Long destinationId, String departAfter, Integer maxTransfers);
     
     Train saveTrain(Train train);
     
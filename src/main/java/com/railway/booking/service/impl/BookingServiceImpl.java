@@ -1,17 +1,41 @@
 
 package com.railway.booking.service.impl;
 
+import com.railway.booking.cache.PnrCache;
+import com.railway.booking.dto.BookingPage;
+import com.railway.booking.dto.BookingView;
+import com.railway.booking.fare.FareEngine;
+import com.railway.booking.hold.SeatHold;
+import com.railway.booking.hold.SeatHoldManager;
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.inventory.SeatInventory;
+import com.railway.booking.inventory.StopRange;
+import com.railway.booking.ledger.BookingLedger;
+import com.railway.booking.ledger.LedgerEvent;
+import com.railway.booking.metrics.BookingMetrics;
+import com.railway.booking.metrics.BookingMetrics.Stage;
 import com.railway.booking.model.*;
+import com.railway.booking.outbox.BookingEvents;
+import com.railway.booking.outbox.OutboxPublisher;
+import com.railway.booking.payment.PaymentHolds;
 import com.railway.booking.repository.*;
 import com.railway.booking.service.BookingService;
+import com.railway.booking.service.InvalidBookingException;
+import com.railway.booking.util.PnrGenerator;
+import com.railway.booking.waitlist.Waitlist;
+import com.railway.booking.waitlist.WaitlistPromoter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class BookingServiceImpl implements BookingService {
@@ -28,9 +52,55 @@ public class BookingServiceImpl implements BookingService {
     @Autowired
     private TrainClassRepository trainClassRepository;
     
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private PnrGenerator pnrGenerator;
+    
+    @Autowired
+    private BookingExportReader bookingExportReader;
+    
+    @Autowired
+    private PnrCache pnrCache;
+    
+    @Autowired
+    private Waitlist waitlist;
+    
+    @Autowired
+    private WaitlistPromoter waitlistPromoter;
+    
+    @Autowired
+    private BookingLedger ledger;
+    
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+    
+    @Autowired
+    private PaymentHolds paymentHolds;
+    
+    @Autowired
+    private SeatHoldManager seatHoldManager;
+    
+    @Autowired
+    private FareEngine fareEngine;
+    
+    @Autowired
+    private BookingMetrics bookingMetrics;
+    
     @Override
     @Transactional
     public Booking createBooking(Long userId, Long trainId, Long trainClassId, Date journeyDate, List<Passenger> passengers) {
+        return createBooking(userId, trainId, trainClassId, journeyDate, null, null, passengers);
+    }
+    
+    @Override
+    @Transactional
+    public Booking createBooking(Long userId, Long trainId, Long trainClassId, Date journeyDate, Long fromStationId, Long toStationId, List<Passenger> passengers) {
+        requirePassengers(passengers);
+        long started = bookingMetrics.start();
+        bookingMetrics.trackRollback(trainId);
+        
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -40,16 +110,71 @@ public class BookingServiceImpl implements BookingService {
         TrainClass trainClass = trainClassRepository.findById(trainClassId)
                 .orElseThrow(() -> new RuntimeException("Train class not found"));
         
-        // Check seat availability
-        if (trainClass.getAvailableSeats() < passengers.size()) {
-            throw new RuntimeException("Not enough seats available");
+        if (!trainClass.getTrain().getId().equals(train.getId())) {
+            throw new RuntimeException("Train class does not belong to train");
+        }
+        
+        long lap = bookingMetrics.lap(Stage.LOOKUP, started);
+        
+        // Reserve seats in the in-memory inventory; freed seats go to the waitlist first
+        InventoryKey key = InventoryKey.of(trainClassId, journeyDate);
+        StopRange range = StopRange.of(train, fromStationId, toStationId);
+        int[] seats = waitlist.hasWaiting(key) ? null : seatInventory.tryReserve(trainClass, journeyDate, range, passengers.size());
+        lap = bookingMetrics.lap(Stage.SEAT_CHECK, lap);
+        return book(user, train, trainClass, journeyDate, fromStationId, toStationId, range, passengers, seats, started, lap);
+    }
+    
+    @Override
+    @Transactional
+    public Booking createBookingFromHold(Long userId, String holdId, List<Passenger> passengers) {
+        requirePassengers(passengers);
+        long started = bookingMetrics.start();
+        SeatHold hold = seatHoldManager.claim(holdId, userId, passengers.size());
+        bookingMetrics.trackRollback(hold.getTrainId());
+        
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        Train train = trainRepository.findById(hold.getTrainId())
+                .orElseThrow(() -> new RuntimeException("Train not found"));
+        
+        TrainClass trainClass = trainClassRepository.findById(hold.getTrainClassId())
+                .orElseThrow(() -> new RuntimeException("Train class not found"));
+        
+        long lap = bookingMetrics.lap(Stage.LOOKUP, started);
+        
+        seatInventory.confirmHeld(trainClass, hold.getSeats().length);
+        return book(user, train, trainClass, hold.getJourneyDate(), hold.getFromStationId(), hold.getToStationId(),
+                hold.getRange(), passengers, hold.getSeats(), started, lap);
+    }
+    
+    // Without this an empty list reserves no seats and is waitlisted as if the class were full
+    private static void requirePassengers(List<Passenger> passengers) {
+        if (passengers == null || passengers.isEmpty()) {
+            throw new InvalidBookingException("No passengers");
+        }
+    }
+    
+    private Booking book(User user, Train train, TrainClass trainClass, Date journeyDate, Long fromStationId, Long toStationId,
+                         StopRange range, List<Passenger> passengers, int[] seats, long started, long lap) {
+        InventoryKey key = InventoryKey.of(trainClass.getId(), journeyDate);
+        // Seats are only held until payment settles; see PaymentServiceImpl
+        String status = paymentHolds.isRequired() ? "PENDING_PAYMENT" : "CONFIRMED";
+        if (seats == null) {
+            boolean full = waitlist.isFull(key);
+            bookingMetrics.seatRejected(train.getId(), !full);
+            if (full) {
+                throw new RuntimeException("Not enough seats available");
+            }
+            status = waitlist.nextStatus(key);
         }
         
         // Generate PNR
-        String pnr = "PNR" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        String pnr = pnrGenerator.next();
         
-        // Calculate total fare
-        BigDecimal totalFare = trainClass.getFare().multiply(new BigDecimal(passengers.size()));
+        // Priced on the occupancy the booking found, before its own seats were taken
+        int available = seatInventory.getAvailableSeats(trainClass, journeyDate, range) + (seats != null ? seats.length : 0);
+        BigDecimal totalFare = FareEngine.toRupees(fareEngine.quote(trainClass, range, available, passengers));
         
         // Create booking
         Booking booking = new Booking();
@@ -57,23 +182,38 @@ public class BookingServiceImpl implements BookingService {
         booking.setUser(user);
         booking.setTrain(train);
         booking.setTrainClass(trainClass);
+        booking.setFromStation(fromStationId != null ? StopRange.stationAt(train, range.getFromStop()) : null);
+        booking.setToStation(toStationId != null ? StopRange.stationAt(train, range.getToStop()) : null);
         booking.setJourneyDate(journeyDate);
         booking.setTotalFare(totalFare);
-        booking.setStatus("CONFIRMED");
+        booking.setStatus(status);
+        if ("PENDING_PAYMENT".equals(status)) {
+            booking.setHoldExpiresAt(paymentHolds.newExpiry());
+        }
+        
+        // Add passengers with their allocated seats
+        for (int i = 0; i < passengers.size(); i++) {
+            Passenger passenger = passengers.get(i);
+            passenger.setBooking(booking);
+            passenger.setSeatNumber(seats != null ? SeatInventory.toSeatNumber(seats[i]) : null);
+            booking.getPassengers().add(passenger);
+        }
         
-        // Save booking first
         Booking savedBooking = bookingRepository.save(booking);
+        ledger.record(LedgerEvent.seats(LedgerEvent.Type.CREATE, savedBooking.getId(), key,
+                range.getFromStop(), range.getToStop(), status, seats));
+        outboxPublisher.publish(BookingEvents.CREATED, savedBooking.getId(),
+                BookingEvents.payload(savedBooking.getId(), pnr, status));
+        bookingMetrics.trackCommit(started, bookingMetrics.lap(Stage.SAVE, lap));
         
-        // Add passengers to booking
-        for (Passenger passenger : passengers) {
-            passenger.setBooking(savedBooking);
-            // In a real system, we would assign seat numbers here
+        if (seats == null) {
+            waitlist.enqueueAfterCommit(savedBooking, key, range, passengers.size());
+            // Runs after the entry is queued: seats freed since tryReserve failed would otherwise sit unused
+            waitlistPromoter.scheduleAfterCommit(key);
+        } else if (savedBooking.getHoldExpiresAt() != null) {
+            paymentHolds.holdAfterCommit(savedBooking.getId(), savedBooking.getHoldExpiresAt());
         }
         
-        // Update available seats
-        trainClass.setAvailableSeats(trainClass.getAvailableSeats() - passengers.size());
-        trainClassRepository.save(trainClass);
-        
         return savedBooking;
     }
     
@@ -84,16 +224,48 @@ public class BookingServiceImpl implements BookingService {
     }
     
     @Override
-    public Booking getBookingByPnr(String pnr) {
-        return bookingRepository.findByPnr(pnr)
-                .orElseThrow(() -> new RuntimeException("Booking not found with PNR: " + pnr));
+    @Transactional(readOnly = true)
+    public BookingView getBookingByPnr(String pnr) {
+        BookingView booking = pnrCache.get(pnr, () -> bookingRepository.findViewByPnr(pnr)
+                .map(BookingView::from)
+                .orElse(null));
+        if (booking == null) {
+            throw new RuntimeException("Booking not found with PNR: " + pnr);
+        }
+        return booking;
     }
     
     @Override
-    public List<Booking> getBookingsByUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return bookingRepository.findByUser(user);
+    @Transactional(readOnly = true)
+    public List<BookingView> getBookingsByUser(Long userId) {
+        return bookingRepository.findViewsByUserId(userId).stream()
+                .map(BookingView::from)
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPage getBookingPage(Long userId, Date afterDate, Long afterId, int size) {
+        PageRequest limit = PageRequest.of(0, size);
+        List<Long> ids = afterDate == null || afterId == null
+                ? bookingRepository.findFirstPageIds(userId, limit)
+                : bookingRepository.findPageIdsAfter(userId, afterDate, afterId, limit);
+        if (ids.isEmpty()) {
+            return new BookingPage(Collections.emptyList(), null, null);
+        }
+        List<BookingView> items = bookingRepository.findViewsByIdIn(ids).stream()
+                .map(BookingView::from)
+                .collect(Collectors.toList());
+        if (ids.size() < size) {
+            return new BookingPage(items, null, null);
+        }
+        BookingView last = items.get(items.size() - 1);
+        return new BookingPage(items, new java.sql.Date(last.getJourneyDate().getTime()).toString(), last.getId());
+    }
+    
+    @Override
+    public void exportBookings(Long userId, OutputStream out) throws IOException {
+        bookingExportReader.export(userId, out);
     }
     
     @Override
@@ -101,6 +273,9 @@ public class BookingServiceImpl implements BookingService {
     public Booking updateBookingStatus(Long id, String status) {
         Booking booking = getBookingById(id);
         booking.setStatus(status);
+        pnrCache.invalidate(booking.getPnr());
+        ledger.record(LedgerEvent.seats(LedgerEvent.Type.STATUS, booking.getId(),
+                InventoryKey.of(booking.getTrainClass().getId(), booking.getJourneyDate()), 0, 0, status, null));
         return bookingRepository.save(booking);
     }
     
@@ -108,14 +283,32 @@ public class BookingServiceImpl implements BookingService {
     @Transactional
     public void cancelBooking(Long id) {
         Booking booking = getBookingById(id);
+        if ("CANCELLED".equals(booking.getStatus())) {
+            throw new RuntimeException("Booking already cancelled");
+        }
         
-        // Return seats to available pool
-        TrainClass trainClass = booking.getTrainClass();
-        trainClass.setAvailableSeats(trainClass.getAvailableSeats() + booking.getPassengers().size());
-        trainClassRepository.save(trainClass);
+        // Return seats to available pool, or just leave the waitlist
+        InventoryKey key = InventoryKey.of(booking.getTrainClass().getId(), booking.getJourneyDate());
+        if (Waitlist.WAITLISTED_STATUSES.contains(booking.getStatus())) {
+            waitlist.removeAfterCommit(booking.getId());
+            ledger.record(LedgerEvent.seats(LedgerEvent.Type.CANCEL, booking.getId(), key, 0, 0, "CANCELLED", null));
+        } else {
+            if ("PENDING_PAYMENT".equals(booking.getStatus())) {
+                paymentHolds.releaseAfterCommit(booking.getId());
+            }
+            StopRange range = StopRange.of(booking);
+            int[] seats = SeatInventory.seatIndexes(booking);
+            seatInventory.release(booking.getTrainClass(), booking.getJourneyDate(), range, seats);
+            ledger.record(LedgerEvent.seats(LedgerEvent.Type.CANCEL, booking.getId(), key,
+                    range.getFromStop(), range.getToStop(), "CANCELLED", seats));
+        }
+        waitlistPromoter.scheduleAfterCommit(key);
         
         // Update booking status
         booking.setStatus("CANCELLED");
+        pnrCache.invalidate(booking.getPnr());
         bookingRepository.save(booking);
+        outboxPublisher.publish(BookingEvents.CANCELLED, booking.getId(),
+                BookingEvents.payload(booking.getId(), booking.getPnr(), "CANCELLED"));
     }
 }
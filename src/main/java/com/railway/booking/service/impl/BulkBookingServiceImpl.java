@@ -0,0 +1,215 @@
+
+package com.railway.booking.service.impl;
+
+import com.railway.booking.dto.BookingRequest;
+import com.railway.booking.dto.BulkBookingResult;
+import com.railway.booking.fare.FareEngine;
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.inventory.SeatInventory;
+import com.railway.booking.inventory.StopRange;
+import com.railway.booking.ledger.BookingLedger;
+import com.railway.booking.ledger.LedgerEvent;
+import com.railway.booking.metrics.BookingMetrics;
+import com.railway.booking.model.*;
+import com.railway.booking.outbox.BookingEvents;
+import com.railway.booking.outbox.OutboxPublisher;
+import com.railway.booking.payment.PaymentHolds;
+import com.railway.booking.repository.*;
+import com.railway.booking.repository.BookingBatchWriter.BookingRow;
+import com.railway.booking.repository.BookingBatchWriter.PassengerRow;
+import com.railway.booking.service.BulkBookingService;
+import com.railway.booking.service.InvalidBookingException;
+import com.railway.booking.util.PnrGenerator;
+import com.railway.booking.waitlist.Waitlist;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class BulkBookingServiceImpl implements BulkBookingService {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Autowired
+    private TrainClassRepository trainClassRepository;
+    
+    @Autowired
+    private BookingBatchWriter bookingBatchWriter;
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private Waitlist waitlist;
+    
+    @Autowired
+    private PnrGenerator pnrGenerator;
+    
+    @Autowired
+    private FareEngine fareEngine;
+    
+    @Autowired
+    private BookingMetrics bookingMetrics;
+    
+    @Autowired
+    private BookingLedger ledger;
+    
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+    
+    @Autowired
+    private PaymentHolds paymentHolds;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${booking.bulk.max-batch-size:500}")
+    private int maxBatchSize;
+    
+    @Value("${booking.bulk.commit-size:100}")
+    private int commitSize;
+    
+    @Override
+    public List<BulkBookingResult> createBookings(List<BookingRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new RuntimeException("Batch exceeds " + maxBatchSize + " bookings");
+        }
+        BulkBookingResult[] results = new BulkBookingResult[requests.size()];
+        
+        // Each chunk is one transaction, so one commit covers many bookings
+        for (int start = 0; start < requests.size(); start += commitSize) {
+            int end = Math.min(start + commitSize, requests.size());
+            int chunkStart = start;
+            List<BookingRequest> chunk = requests.subList(start, end);
+            try {
+                transactionTemplate.executeWithoutResult(status -> bookChunk(chunk, chunkStart, results));
+            } catch (RuntimeException e) {
+                // The rollback already returned this chunk's seats to the inventory
+                for (int i = chunkStart; i < end; i++) {
+                    if (results[i] == null || results[i].isSuccess()) {
+                        results[i] = BulkBookingResult.failed(i, "Batch commit failed: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+    
+    private void bookChunk(List<BookingRequest> chunk, int offset, BulkBookingResult[] results) {
+        // Resolve every referenced entity with one query per type
+        Map<Long, User> users = byId(userRepository.findAllById(ids(chunk, BookingRequest::getUserId)), User::getId);
+        Map<Long, Train> trains = byId(trainRepository.findAllById(ids(chunk, BookingRequest::getTrainId)), Train::getId);
+        Map<Long, TrainClass> trainClasses = byId(trainClassRepository.findAllById(ids(chunk, BookingRequest::getTrainClassId)), TrainClass::getId);
+        
+        List<BookingRow> bookingRows = new ArrayList<>();
+        Map<String, List<Passenger>> passengersByPnr = new HashMap<>();
+        Map<String, int[]> seatsByPnr = new HashMap<>();
+        Map<String, Integer> indexByPnr = new HashMap<>();
+        Map<String, InventoryKey> keysByPnr = new HashMap<>();
+        Map<String, StopRange> rangesByPnr = new HashMap<>();
+        
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = offset + i;
+            BookingRequest request = chunk.get(i);
+            try {
+                User user = require(users.get(request.getUserId()), "User not found");
+                Train train = require(trains.get(request.getTrainId()), "Train not found");
+                TrainClass trainClass = require(trainClasses.get(request.getTrainClassId()), "Train class not found");
+                if (!trainClass.getTrain().getId().equals(train.getId())) {
+                    throw new RuntimeException("Train class does not belong to train");
+                }
+                List<Passenger> passengers = request.getPassengers();
+                if (passengers == null || passengers.isEmpty()) {
+                    throw new InvalidBookingException("No passengers");
+                }
+                for (Passenger passenger : passengers) {
+                    if (passenger.getName() == null || passenger.getAge() == null || passenger.getGender() == null) {
+                        throw new RuntimeException("Passenger name, age and gender are required");
+                    }
+                }
+                
+                Date journeyDate = new Date(request.getJourneyDate());
+                StopRange range = StopRange.of(train, request.getFromStationId(), request.getToStationId());
+                // Bulk bookings are never waitlisted, and freed seats go to the waitlist first
+                if (waitlist.hasWaiting(InventoryKey.of(trainClass.getId(), journeyDate))) {
+                    bookingMetrics.seatRejected(train.getId(), false);
+                    throw new RuntimeException("Not enough seats available: the class has a waitlist");
+                }
+                int[] seats = seatInventory.tryReserve(trainClass, journeyDate, range, passengers.size());
+                if (seats == null) {
+                    bookingMetrics.seatRejected(train.getId(), false);
+                    throw new RuntimeException("Not enough seats available");
+                }
+                
+                String pnr = pnrGenerator.next();
+                // Held until payment settles, exactly like a single booking
+                String status = paymentHolds.isRequired() ? "PENDING_PAYMENT" : "CONFIRMED";
+                int available = seatInventory.getAvailableSeats(trainClass, journeyDate, range) + seats.length;
+                BigDecimal totalFare = FareEngine.toRupees(fareEngine.quote(trainClass, range, available, passengers));
+                bookingRows.add(new BookingRow(pnr, user.getId(), train.getId(), trainClass.getId(),
+                        request.getFromStationId() != null ? StopRange.stationAt(train, range.getFromStop()).getId() : null,
+                        request.getToStationId() != null ? StopRange.stationAt(train, range.getToStop()).getId() : null,
+                        journeyDate, totalFare, status, "PENDING_PAYMENT".equals(status) ? paymentHolds.newExpiry() : null));
+                passengersByPnr.put(pnr, passengers);
+                seatsByPnr.put(pnr, seats);
+                indexByPnr.put(pnr, index);
+                keysByPnr.put(pnr, InventoryKey.of(trainClass.getId(), journeyDate));
+                rangesByPnr.put(pnr, range);
+            } catch (RuntimeException e) {
+                results[index] = BulkBookingResult.failed(index, e.getMessage());
+            }
+        }
+        
+        Map<String, Long> bookingIds = bookingBatchWriter.insertBookings(bookingRows);
+        
+        List<PassengerRow> passengerRows = new ArrayList<>();
+        Map<Long, Object> events = new LinkedHashMap<>();
+        for (BookingRow row : bookingRows) {
+            String pnr = row.getPnr();
+            Long bookingId = bookingIds.get(pnr);
+            List<Passenger> passengers = passengersByPnr.get(pnr);
+            int[] seats = seatsByPnr.get(pnr);
+            for (int i = 0; i < passengers.size(); i++) {
+                Passenger passenger = passengers.get(i);
+                passengerRows.add(new PassengerRow(bookingId, passenger.getName(), passenger.getAge(),
+                        passenger.getGender(), SeatInventory.toSeatNumber(seats[i])));
+            }
+            StopRange range = rangesByPnr.get(pnr);
+            ledger.record(LedgerEvent.seats(LedgerEvent.Type.CREATE, bookingId, keysByPnr.get(pnr),
+                    range.getFromStop(), range.getToStop(), row.getStatus(), seats));
+            events.put(bookingId, BookingEvents.payload(bookingId, pnr, row.getStatus()));
+            if (row.getHoldExpiresAt() != null) {
+                paymentHolds.holdAfterCommit(bookingId, row.getHoldExpiresAt());
+            }
+            int index = indexByPnr.get(pnr);
+            results[index] = BulkBookingResult.booked(index, bookingId, pnr);
+        }
+        bookingBatchWriter.insertPassengers(passengerRows);
+        outboxPublisher.publishAll(BookingEvents.CREATED, events);
+    }
+    
+    private static <T> T require(T value, String message) {
+        if (value == null) {
+            throw new RuntimeException(message);
+        }
+        return value;
+    }
+    
+    private static Set<Long> ids(List<BookingRequest> requests, Function<BookingRequest, Long> id) {
+        return requests.stream().map(id).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+    
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> id) {
+        return entities.stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+}
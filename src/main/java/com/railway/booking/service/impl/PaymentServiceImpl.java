@@ -0,0 +1,224 @@
+
+package com.railway.booking.service.impl;
+
+import com.railway.booking.cache.PnrCache;
+import com.railway.booking.cluster.ClusterMembership;
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.inventory.SeatInventory;
+import com.railway.booking.inventory.StopRange;
+import com.railway.booking.ledger.BookingLedger;
+import com.railway.booking.ledger.LedgerEvent;
+import com.railway.booking.model.Booking;
+import com.railway.booking.model.Payment;
+import com.railway.booking.outbox.BookingEvents;
+import com.railway.booking.outbox.OutboxPublisher;
+import com.railway.booking.payment.PaymentGateway;
+import com.railway.booking.payment.PaymentHolds;
+import com.railway.booking.payment.PaymentRefundHandler;
+import com.railway.booking.payment.PaymentSettlementHandler;
+import com.railway.booking.repository.BookingRepository;
+import com.railway.booking.repository.PaymentRepository;
+import com.railway.booking.service.PaymentService;
+import com.railway.booking.waitlist.WaitlistPromoter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class PaymentServiceImpl implements PaymentService {
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private PaymentGateway paymentGateway;
+    
+    @Autowired
+    private PaymentHolds paymentHolds;
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private BookingLedger ledger;
+    
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+    
+    @Autowired
+    private PnrCache pnrCache;
+    
+    @Autowired
+    private WaitlistPromoter waitlistPromoter;
+    
+    @Autowired
+    private ClusterMembership clusterMembership;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${booking.payment.reconcile-batch-size:100}")
+    private int reconcileBatchSize;
+    
+    @Value("${booking.payment.reconcile-after-seconds:60}")
+    private int reconcileAfterSeconds;
+    
+    @Value("${booking.payment.expiry-batch-size:100}")
+    private int expiryBatchSize;
+    
+    @Override
+    @Transactional
+    public Payment initiatePayment(Long bookingId, String paymentMethod, String transactionId) {
+        if (transactionId == null || transactionId.isEmpty()) {
+            throw new RuntimeException("transactionId is required");
+        }
+        // A retried request with the same key gets the original payment back
+        Payment existing = paymentRepository.findByTransactionId(transactionId).orElse(null);
+        if (existing != null) {
+            if (!existing.getBooking().getId().equals(bookingId)) {
+                throw new RuntimeException("transactionId already used for another booking");
+            }
+            return existing;
+        }
+        
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new RuntimeException("Booking not found"));
+        if (!"PENDING_PAYMENT".equals(booking.getStatus())) {
+            throw new RuntimeException("Booking is not awaiting payment");
+        }
+        Payment payment = booking.getPayment();
+        if (payment != null && !"FAILED".equals(payment.getStatus())) {
+            throw new RuntimeException("A payment is already in progress for this booking");
+        }
+        if (payment == null) {
+            payment = new Payment();
+            payment.setBooking(booking);
+            booking.setPayment(payment);
+        }
+        payment.setPaymentMethod(paymentMethod);
+        payment.setAmount(booking.getTotalFare());
+        payment.setStatus("PENDING");
+        payment.setPaymentDate(new Date());
+        payment.setTransactionId(transactionId);
+        Payment savedPayment = paymentRepository.save(payment);
+        outboxPublisher.publish(PaymentSettlementHandler.PAYMENT_REQUESTED, savedPayment.getId(), payload(savedPayment));
+        return savedPayment;
+    }
+    
+    @Override
+    public Payment getPaymentById(Long id) {
+        return paymentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
+    }
+    
+    @Override
+    public Payment getPaymentByTransactionId(String transactionId) {
+        return paymentRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> new RuntimeException("Payment not found with transactionId: " + transactionId));
+    }
+    
+    @Override
+    @Transactional
+    public Payment settle(String transactionId, String outcome) {
+        Payment payment = getPaymentByTransactionId(transactionId);
+        // Settling twice (outbox redelivery racing reconciliation) is a no-op
+        if (!"PENDING".equals(payment.getStatus())) {
+            return payment;
+        }
+        if ("SUCCESS".equals(outcome)) {
+            Booking booking = payment.getBooking();
+            // Conditional so a hold expiring at the same moment cannot also release the seats
+            if (bookingRepository.updateStatus(Collections.singletonList(booking.getId()), "PENDING_PAYMENT", "CONFIRMED") == 1) {
+                payment.setStatus("SUCCESS");
+                paymentHolds.releaseAfterCommit(booking.getId());
+                ledger.record(LedgerEvent.seats(LedgerEvent.Type.STATUS, booking.getId(),
+                        InventoryKey.of(booking.getTrainClass().getId(), booking.getJourneyDate()), 0, 0, "CONFIRMED", null));
+                outboxPublisher.publish(BookingEvents.CONFIRMED, booking.getId(),
+                        BookingEvents.payload(booking.getId(), booking.getPnr(), "CONFIRMED"));
+                pnrCache.invalidate(booking.getPnr());
+            } else {
+                // The hold expired or the booking was cancelled first; the money goes back once this commits
+                payment.setStatus("REFUND_REQUESTED");
+                outboxPublisher.publish(PaymentRefundHandler.REFUND_REQUESTED, payment.getId(), payload(payment));
+            }
+        } else if ("FAILED".equals(outcome)) {
+            payment.setStatus("FAILED");
+        }
+        return paymentRepository.save(payment);
+    }
+    
+    @Override
+    @Scheduled(fixedDelayString = "${booking.payment.reconcile-interval-ms:30000}")
+    public int reconcilePending() {
+        Date before = new Date(System.currentTimeMillis() - reconcileAfterSeconds * 1000L);
+        List<Payment> pending = paymentRepository.findByStatusAndPaymentDateBeforeOrderByIdAsc("PENDING", before,
+                PageRequest.of(0, reconcileBatchSize));
+        int settled = 0;
+        // Gateway calls happen outside any transaction; each settlement commits on its own
+        for (Payment payment : pending) {
+            String outcome = paymentGateway.status(payment.getTransactionId());
+            if (outcome != null && !"PENDING".equals(outcome)) {
+                transactionTemplate.executeWithoutResult(status -> settle(payment.getTransactionId(), outcome));
+                settled++;
+            }
+        }
+        return settled;
+    }
+    
+    @Override
+    @Scheduled(fixedDelayString = "${booking.payment.hold-sweep-interval-ms:1000}")
+    public int expireHolds() {
+        List<Long> expired = paymentHolds.expired(System.currentTimeMillis());
+        for (int start = 0; start < expired.size(); start += expiryBatchSize) {
+            List<Long> chunk = expired.subList(start, Math.min(start + expiryBatchSize, expired.size()));
+            transactionTemplate.executeWithoutResult(status -> expire(chunk));
+        }
+        return expired.size();
+    }
+    
+    private static Map<String, Object> payload(Payment payment) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("paymentId", payment.getId());
+        payload.put("transactionId", payment.getTransactionId());
+        return payload;
+    }
+    
+    private void expire(List<Long> bookingIds) {
+        for (Booking booking : bookingRepository.findAllById(bookingIds)) {
+            InventoryKey key = InventoryKey.of(booking.getTrainClass().getId(), booking.getJourneyDate());
+            // Holds on keys that moved away are timed by their new owner; ones that moved here wait out the handoff
+            if (!clusterMembership.owns(key)) {
+                continue;
+            }
+            if (clusterMembership.isHandingOver(key)) {
+                paymentHolds.postpone(booking.getId(), clusterMembership.getHandoffEndsAt());
+                continue;
+            }
+            if (bookingRepository.updateStatus(Collections.singletonList(booking.getId()), "PENDING_PAYMENT", "CANCELLED") == 0) {
+                continue;
+            }
+            StopRange range = StopRange.of(booking);
+            int[] seats = SeatInventory.seatIndexes(booking);
+            seatInventory.release(booking.getTrainClass(), booking.getJourneyDate(), range, seats);
+            ledger.record(LedgerEvent.seats(LedgerEvent.Type.CANCEL, booking.getId(), key,
+                    range.getFromStop(), range.getToStop(), "CANCELLED", seats));
+            outboxPublisher.publish(BookingEvents.CANCELLED, booking.getId(),
+                    BookingEvents.payload(booking.getId(), booking.getPnr(), "CANCELLED"));
+            pnrCache.invalidate(booking.getPnr());
+            waitlistPromoter.scheduleAfterCommit(key);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+
+package com.railway.booking.service.impl;
+
+import com.railway.booking.dto.StationSuggestion;
+import com.railway.booking.search.StationIndex;
+import com.railway.booking.service.StationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class StationServiceImpl implements StationService {
+    
+    @Autowired
+    private StationIndex stationIndex;
+    
+    @Override
+    public List<StationSuggestion> autocomplete(String query, Integer limit) {
+        return stationIndex.suggest(query, limit);
+    }
+}
@@ -1,12 +1,26 @@
 
 package com.railway.booking.service.impl;
 
+import com.railway.booking.cache.CatalogSnapshot;
+import com.railway.booking.cache.TrainCatalog;
+import com.railway.booking.dto.Itinerary;
+import com.railway.booking.dto.TrainSearchResult;
+import com.railway.booking.dto.TrainView;
+import com.railway.booking.event.TrainScheduleChangedEvent;
+import com.railway.booking.inventory.SeatInventory;
 import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.repository.TrainClassRepository;
 import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.search.ConnectionSearch;
+import com.railway.booking.search.RouteIndex;
+import com.railway.booking.search.Timetable;
 import com.railway.booking.service.TrainService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
 import java.util.List;
 
 @Service
@@ -15,29 +29,82 @@ public class TrainServiceImpl implements TrainService {
     @Autowired
     private TrainRepository trainRepository;
     
+    @Autowired
+    private TrainClassRepository trainClassRepository;
+    
+    @Autowired
+    private RouteIndex routeIndex;
+    
+    @Autowired
+    private ConnectionSearch connectionSearch;
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private TrainCatalog trainCatalog;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Override
+    public CatalogSnapshot getCatalog() {
+        return trainCatalog.getSnapshot();
+    }
+    
     @Override
-    public List<Train> getAllTrains() {
-        return trainRepository.findAll();
+    public TrainView getTrainById(Long id) {
+        TrainView train = trainCatalog.getSnapshot().getTrain(id);
+        if (train == null) {
+            throw new RuntimeException("Train not found with id: " + id);
+        }
+        return train;
     }
     
     @Override
-    public Train getTrainById(Long id) {
-        return trainRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Train not found with id: " + id));
+    public List<TrainSearchResult> searchTrains(Long sourceId, Long destinationId, Integer passengers, Date journeyDate) {
+        if (journeyDate == null) {
+            return routeIndex.search(sourceId, destinationId, passengers, null);
+        }
+        // Counts come straight from the in-memory seat layouts, so one search answers for every class
+        return routeIndex.search(sourceId, destinationId, passengers, (trainId, trainClassId, fromStop, toStop) ->
+                seatInventory.getAvailableSeats(trainId, trainClassId, journeyDate, fromStop, toStop));
     }
     
     @Override
-    public List<Train> searchTrains(Long sourceId, Long destinationId, Integer passengers) {
-        return trainRepository.findAvailableTrains(sourceId, destinationId, passengers);
+    public List<Itinerary> searchConnections(Long sourceId, Long destinationId, String departAfter, Integer maxTransfers) {
+        return connectionSearch.search(sourceId, destinationId, Timetable.parseMinutes(departAfter), maxTransfers);
     }
     
     @Override
     public Train saveTrain(Train train) {
-        return trainRepository.save(train);
+        // Wire back-references the JSON payload cannot carry
+        train.getTrainClasses().forEach(trainClass -> trainClass.setTrain(train));
+        train.getStops().forEach(stop -> stop.setTrain(train));
+        // Payloads without a version would otherwise merge in as new classes; they also leave the seat count alone
+        for (TrainClass trainClass : train.getTrainClasses()) {
+            if (trainClass.getId() != null && trainClass.getVersion() == null) {
+                trainClassRepository.findById(trainClass.getId()).ifPresent(current -> {
+                    trainClass.setVersion(current.getVersion());
+                    trainClass.setAvailableSeats(current.getAvailableSeats());
+                    if (trainClass.getTotalSeats() == null) {
+                        trainClass.setTotalSeats(current.getTotalSeats());
+                    }
+                });
+            }
+            // A new class has sold nothing yet, so its seat count is its capacity
+            if (trainClass.getId() == null && trainClass.getTotalSeats() == null) {
+                trainClass.setTotalSeats(trainClass.getAvailableSeats());
+            }
+        }
+        Train savedTrain = trainRepository.save(train);
+        eventPublisher.publishEvent(new TrainScheduleChangedEvent(savedTrain.getId(), false));
+        return savedTrain;
     }
     
     @Override
     public void deleteTrain(Long id) {
         trainRepository.deleteById(id);
+        eventPublisher.publishEvent(new TrainScheduleChangedEvent(id, true));
     }
 }
@@ -0,0 +1,76 @@
+
+package com.railway.booking.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time/node/sequence PNRs: 32 bits of seconds since 2024-01-01, 10 bits of node id and a
+ * 14-bit per-second sequence, written as 11 base-36 digits after the "PNR" prefix.
+ *
+ * <p>The seconds and sequence live together in one AtomicLong that only moves forward.
+ * A burst of more than 16384 PNRs in one second borrows the next second instead of
+ * blocking, so generation never waits and never repeats on a node.
+ */
+@Component
+public class PnrGenerator {
+    
+    public static final String PREFIX = "PNR";
+    
+    private static final long EPOCH_SECONDS = 1704067200L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 14;
+    private static final int DIGITS = 11; // 36^11 > 2^56
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+    
+    private final long node;
+    private final AtomicLong lastStamp = new AtomicLong();
+    
+    /**
+     * A single node defaults to node id 0. In a cluster every node would default to the same
+     * id and could mint the same PNR in the same second, so the id must be set explicitly.
+     */
+    @Autowired
+    public PnrGenerator(@Value("${booking.pnr.node-id:}") Integer nodeId, @Value("${booking.cluster.nodes:}") String clusterNodes) {
+        this(requireNodeId(nodeId, clusterNodes));
+    }
+    
+    public PnrGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId >= 1 << NODE_BITS) {
+            throw new IllegalArgumentException("booking.pnr.node-id must be between 0 and " + ((1 << NODE_BITS) - 1));
+        }
+        this.node = nodeId;
+    }
+    
+    private static int requireNodeId(Integer nodeId, String clusterNodes) {
+        if (nodeId != null) {
+            return nodeId;
+        }
+        if (!clusterNodes.isBlank()) {
+            throw new IllegalStateException("booking.pnr.node-id must be set to an id unique to this node when booking.cluster.nodes is set");
+        }
+        return 0;
+    }
+    
+    public String next() {
+        long now = (TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - EPOCH_SECONDS) << SEQUENCE_BITS;
+        long stamp = lastStamp.accumulateAndGet(now, (last, wallClock) -> Math.max(last + 1, wallClock));
+        long seconds = stamp >>> SEQUENCE_BITS;
+        long sequence = stamp & ((1L << SEQUENCE_BITS) - 1);
+        return encode((seconds << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence);
+    }
+    
+    private static String encode(long value) {
+        char[] chars = new char[PREFIX.length() + DIGITS];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (value % 36)];
+            value /= 36;
+        }
+        return new String(chars);
+    }
+}
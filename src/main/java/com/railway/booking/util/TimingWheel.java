@@ -0,0 +1,140 @@
+
+package com.railway.booking.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hierarchical timing wheel for very large numbers of coarse timeouts keyed by id. Level 0
+ * has one bucket per tick; each higher level has buckets {@code wheelSize} times wider, and
+ * its bucket is cascaded down a level when the wheel below wraps. Scheduling is O(1) into
+ * the coarsest level that still resolves the deadline, cancelling is an O(1) flag, and each
+ * tick touches one level-0 bucket plus an occasional cascade. Expiry is reported up to one
+ * tick late.
+ */
+public class TimingWheel<K> {
+    
+    private final long tickMillis;
+    private final long startMillis;
+    private final int wheelSize;
+    // Ticks per bucket at each level: 1, wheelSize, wheelSize^2, ...
+    private final long[] units;
+    private final List<List<Queue<Timeout<K>>>> buckets;
+    private final Map<K, Timeout<K>> timeouts = new ConcurrentHashMap<>();
+    private long currentTick;
+    
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this(tickMillis, wheelSize, 3, startMillis);
+    }
+    
+    public TimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.wheelSize = wheelSize;
+        this.units = new long[levels];
+        this.buckets = new ArrayList<>(levels);
+        long unit = 1;
+        for (int level = 0; level < levels; level++) {
+            units[level] = unit;
+            unit *= wheelSize;
+            List<Queue<Timeout<K>>> wheel = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                wheel.add(new ArrayDeque<>());
+            }
+            buckets.add(wheel);
+        }
+    }
+    
+    // Replaces any timeout already scheduled for the key
+    public void schedule(K key, long deadlineMillis) {
+        Timeout<K> timeout = new Timeout<>(key, Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis));
+        Timeout<K> previous = timeouts.put(key, timeout);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        synchronized (this) {
+            place(timeout, currentTick + 1);
+        }
+    }
+    
+    public boolean cancel(K key) {
+        Timeout<K> timeout = timeouts.remove(key);
+        if (timeout == null) {
+            return false;
+        }
+        timeout.cancelled = true;
+        return true;
+    }
+    
+    public int size() {
+        return timeouts.size();
+    }
+    
+    /**
+     * Moves the wheel up to {@code nowMillis} and returns the keys that expired on the way.
+     * The lock is taken per tick, so scheduling is never blocked for a whole catch-up.
+     */
+    public List<K> advance(long nowMillis) {
+        long target = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        List<K> expired = new ArrayList<>();
+        while (true) {
+            synchronized (this) {
+                if (currentTick >= target) {
+                    return expired;
+                }
+                long tick = ++currentTick;
+                // Higher levels first, so cascaded timeouts due this tick land in the bucket drained below
+                for (int level = units.length - 1; level > 0; level--) {
+                    if (tick % units[level] == 0) {
+                        int index = (int) ((tick / units[level]) % wheelSize);
+                        // Swap the bucket out first: overflowed timeouts go straight back into this slot
+                        Queue<Timeout<K>> bucket = buckets.get(level).set(index, new ArrayDeque<>());
+                        for (Timeout<K> timeout : bucket) {
+                            if (!timeout.cancelled) {
+                                place(timeout, tick);
+                            }
+                        }
+                    }
+                }
+                Queue<Timeout<K>> bucket = buckets.get(0).get((int) (tick % wheelSize));
+                for (Timeout<K> timeout = bucket.poll(); timeout != null; timeout = bucket.poll()) {
+                    if (!timeout.cancelled && timeouts.remove(timeout.key, timeout)) {
+                        expired.add(timeout.key);
+                    }
+                }
+            }
+        }
+    }
+    
+    // Caller holds the lock; earliestTick pulls overdue timeouts into the next bucket to be drained
+    private void place(Timeout<K> timeout, long earliestTick) {
+        long tick = Math.max(timeout.tick, earliestTick);
+        int top = units.length - 1;
+        for (int level = 0; level <= top; level++) {
+            long span = units[level] * wheelSize;
+            if (tick - currentTick < span || level == top) {
+                long slot = tick / units[level];
+                // Beyond the top level's reach: park in its furthest bucket and re-place on cascade
+                slot = Math.min(slot, currentTick / units[level] + wheelSize);
+                buckets.get(level).get((int) (slot % wheelSize)).add(timeout);
+                return;
+            }
+        }
+    }
+    
+    private static final class Timeout<K> {
+        
+        final K key;
+        final long tick;
+        volatile boolean cancelled;
+        
+        Timeout(K key, long tick) {
+            this.key = key;
+            this.tick = tick;
+        }
+    }
+}
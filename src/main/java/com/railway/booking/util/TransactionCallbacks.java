@@ -0,0 +1,91 @@
+
+package com.railway.booking.util;
+
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory side effects until the surrounding transaction has completed. Without
+ * an active transaction the callback runs immediately as if committed.
+ */
+public final class TransactionCallbacks {
+    
+    private TransactionCallbacks() {
+    }
+    
+    public static void afterCompletion(CompletionCallback callback) {
+        afterCompletion(callback, Ordered.LOWEST_PRECEDENCE);
+    }
+    
+    /**
+     * Callbacks with a lower {@code order} run first, whatever order they were registered in;
+     * equal orders run in registration order.
+     */
+    public static void afterCompletion(CompletionCallback callback, int order) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.onComplete(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return order;
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                callback.onComplete(status == STATUS_COMMITTED);
+            }
+        });
+    }
+    
+    public static void afterCommit(Runnable action) {
+        afterCommit(action, Ordered.LOWEST_PRECEDENCE);
+    }
+    
+    public static void afterCommit(Runnable action, int order) {
+        afterCompletion(committed -> {
+            if (committed) {
+                action.run();
+            }
+        }, order);
+    }
+    
+    /**
+     * Runs {@code action} just before the transaction commits, and {@code compensation} if
+     * the action ran but the transaction then rolled back anyway. The compensation runs in
+     * {@code order} among the after-completion callbacks.
+     */
+    public static void beforeCommit(Runnable action, Runnable compensation, int order) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean ran;
+            
+            @Override
+            public int getOrder() {
+                return order;
+            }
+            
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                action.run();
+                ran = true;
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (ran && status != STATUS_COMMITTED) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+    
+    public interface CompletionCallback {
+        void onComplete(boolean committed);
+    }
+}
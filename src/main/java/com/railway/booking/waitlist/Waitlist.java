@@ -0,0 +1,137 @@
+
+package com.railway.booking.waitlist;
+
+import com.railway.booking.cluster.ClusterMembership;
+import com.railway.booking.event.MembershipChangedEvent;
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.inventory.StopRange;
+import com.railway.booking.model.Booking;
+import com.railway.booking.repository.BookingRepository;
+import com.railway.booking.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+/**
+ * FIFO waitlist per (train class, journey date), kept in a skip list so the head can be
+ * read in order and any entry removed in O(log n). The first {@code rac-limit} entries of
+ * each queue hold RAC status; the rest are WAITING. In a cluster each node keeps only the
+ * queues of the keys it owns.
+ */
+@Component
+public class Waitlist {
+    
+    public static final List<String> WAITLISTED_STATUSES = Arrays.asList("RAC", "WAITING");
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private ClusterMembership membership;
+    
+    @Value("${booking.waitlist.max-length:200}")
+    private int maxLength;
+    
+    @Value("${booking.waitlist.rac-limit:0}")
+    private int racLimit;
+    
+    private final Map<InventoryKey, NavigableSet<WaitlistEntry>> queues = new ConcurrentHashMap<>();
+    private final Map<Long, WaitlistEntry> entries = new ConcurrentHashMap<>();
+    
+    @EventListener({ApplicationReadyEvent.class, MembershipChangedEvent.class})
+    @Transactional(readOnly = true)
+    public void load() {
+        remove(entries.values().stream()
+                .filter(entry -> !membership.owns(entry.getKey()))
+                .collect(Collectors.toList()));
+        for (Booking booking : bookingRepository.findByStatusInOrderByIdAsc(WAITLISTED_STATUSES)) {
+            InventoryKey key = InventoryKey.of(booking.getTrainClass().getId(), booking.getJourneyDate());
+            if (membership.owns(key)) {
+                StopRange range = StopRange.of(booking);
+                add(new WaitlistEntry(booking.getId(), key, booking.getPassengers().size(),
+                        range.getFromStop(), range.getToStop(), "RAC".equals(booking.getStatus())));
+            }
+        }
+    }
+    
+    public boolean hasWaiting(InventoryKey key) {
+        NavigableSet<WaitlistEntry> queue = queues.get(key);
+        return queue != null && !queue.isEmpty();
+    }
+    
+    public boolean isFull(InventoryKey key) {
+        return size(key) >= maxLength;
+    }
+    
+    public int size(InventoryKey key) {
+        NavigableSet<WaitlistEntry> queue = queues.get(key);
+        return queue == null ? 0 : queue.size();
+    }
+    
+    public String nextStatus(InventoryKey key) {
+        return size(key) < racLimit ? "RAC" : "WAITING";
+    }
+    
+    public int getRacLimit() {
+        return racLimit;
+    }
+    
+    public void enqueueAfterCommit(Booking booking, InventoryKey key, StopRange range, int seats) {
+        WaitlistEntry entry = new WaitlistEntry(booking.getId(), key, seats, range.getFromStop(), range.getToStop(),
+                "RAC".equals(booking.getStatus()));
+        TransactionCallbacks.afterCommit(() -> add(entry));
+    }
+    
+    public void removeAfterCommit(Long bookingId) {
+        TransactionCallbacks.afterCommit(() -> {
+            WaitlistEntry entry = entries.get(bookingId);
+            if (entry != null) {
+                remove(Arrays.asList(entry));
+            }
+        });
+    }
+    
+    /**
+     * Up to {@code limit} entries from the head of the queue, in FIFO order.
+     */
+    public List<WaitlistEntry> head(InventoryKey key, int limit) {
+        NavigableSet<WaitlistEntry> queue = queues.get(key);
+        List<WaitlistEntry> head = new ArrayList<>(Math.min(limit, 64));
+        if (queue != null) {
+            Iterator<WaitlistEntry> iterator = queue.iterator();
+            while (head.size() < limit && iterator.hasNext()) {
+                head.add(iterator.next());
+            }
+        }
+        return head;
+    }
+    
+    public void remove(Collection<WaitlistEntry> removed) {
+        for (WaitlistEntry entry : removed) {
+            entries.remove(entry.getBookingId());
+            NavigableSet<WaitlistEntry> queue = queues.get(entry.getKey());
+            if (queue != null) {
+                queue.remove(entry);
+            }
+        }
+    }
+    
+    private void add(WaitlistEntry entry) {
+        entries.put(entry.getBookingId(), entry);
+        queues.computeIfAbsent(entry.getKey(), key -> new ConcurrentSkipListSet<>()).add(entry);
+    }
+}
@@ -0,0 +1,60 @@
+
+package com.railway.booking.waitlist;
+
+import com.railway.booking.inventory.InventoryKey;
+
+/**
+ * A waitlisted booking. Booking ids are assigned in creation order, so they double as the
+ * FIFO sequence number.
+ */
+public class WaitlistEntry implements Comparable<WaitlistEntry> {
+    
+    private final long bookingId;
+    private final InventoryKey key;
+    private final int seats;
+    private final int fromStop;
+    private final int toStop;
+    private volatile boolean rac;
+    
+    public WaitlistEntry(long bookingId, InventoryKey key, int seats, int fromStop, int toStop, boolean rac) {
+        this.bookingId = bookingId;
+        this.key = key;
+        this.seats = seats;
+        this.fromStop = fromStop;
+        this.toStop = toStop;
+        this.rac = rac;
+    }
+    
+    public long getBookingId() {
+        return bookingId;
+    }
+    
+    public InventoryKey getKey() {
+        return key;
+    }
+    
+    public int getSeats() {
+        return seats;
+    }
+    
+    public int getFromStop() {
+        return fromStop;
+    }
+    
+    public int getToStop() {
+        return toStop;
+    }
+    
+    public boolean isRac() {
+        return rac;
+    }
+    
+    void setRac(boolean rac) {
+        this.rac = rac;
+    }
+    
+    @Override
+    public int compareTo(WaitlistEntry other) {
+        return Long.compare(bookingId, other.bookingId);
+    }
+}
@@ -0,0 +1,190 @@
+
+package com.railway.booking.waitlist;
+
+import com.railway.booking.cache.PnrCache;
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.inventory.SeatInventory;
+import com.railway.booking.inventory.StopRange;
+import com.railway.booking.ledger.BookingLedger;
+import com.railway.booking.ledger.LedgerEvent;
+import com.railway.booking.outbox.BookingEvents;
+import com.railway.booking.outbox.OutboxPublisher;
+import com.railway.booking.payment.PaymentHolds;
+import com.railway.booking.model.Booking;
+import com.railway.booking.model.Passenger;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.repository.BookingRepository;
+import com.railway.booking.repository.TrainClassRepository;
+import com.railway.booking.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Promotes waitlisted bookings when seats come back. Cancellations only mark their
+ * (train class, journey date) as pending; a single background thread walks the queue in
+ * batches, so the cancelling request never waits on the waitlist.
+ */
+@Component
+public class WaitlistPromoter {
+    
+    private static final Logger log = LoggerFactory.getLogger(WaitlistPromoter.class);
+    
+    @Autowired
+    private Waitlist waitlist;
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private TrainClassRepository trainClassRepository;
+    
+    @Autowired
+    private PnrCache pnrCache;
+    
+    @Autowired
+    private BookingLedger ledger;
+    
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+    
+    @Autowired
+    private PaymentHolds paymentHolds;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${booking.waitlist.promotion-batch-size:50}")
+    private int batchSize;
+    
+    @Value("${booking.waitlist.retry-delay-ms:1000}")
+    private long retryDelayMillis;
+    
+    private final Set<InventoryKey> pending = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "waitlist-promoter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public void scheduleAfterCommit(InventoryKey key) {
+        TransactionCallbacks.afterCommit(() -> schedule(key));
+    }
+    
+    public void schedule(InventoryKey key) {
+        // Repeated cancellations on the same key collapse into one pass
+        if (pending.add(key)) {
+            executor.execute(() -> {
+                pending.remove(key);
+                try {
+                    promote(key);
+                } catch (RuntimeException e) {
+                    // Seats freed before the failure would otherwise wait for the next cancellation
+                    log.warn("Waitlist promotion failed for {}, retrying in {} ms", key, retryDelayMillis, e);
+                    executor.schedule(() -> schedule(key), retryDelayMillis, TimeUnit.MILLISECONDS);
+                }
+            });
+        }
+    }
+    
+    private void promote(InventoryKey key) {
+        while (true) {
+            List<WaitlistEntry> batch = waitlist.head(key, batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<WaitlistEntry> done = transactionTemplate.execute(status -> promoteBatch(key, batch));
+            waitlist.remove(done);
+            if (done.size() < batch.size()) {
+                return;
+            }
+        }
+    }
+    
+    private List<WaitlistEntry> promoteBatch(InventoryKey key, List<WaitlistEntry> batch) {
+        TrainClass trainClass = trainClassRepository.findById(key.getTrainClassId()).orElse(null);
+        if (trainClass == null) {
+            return batch;
+        }
+        List<Long> ids = batch.stream().map(WaitlistEntry::getBookingId).collect(Collectors.toList());
+        Map<Long, Booking> bookings = bookingRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        
+        List<WaitlistEntry> done = new ArrayList<>();
+        for (WaitlistEntry entry : batch) {
+            Booking booking = bookings.get(entry.getBookingId());
+            if (booking == null || !Waitlist.WAITLISTED_STATUSES.contains(booking.getStatus())) {
+                done.add(entry);
+                continue;
+            }
+            int[] seats = seatInventory.tryReserve(trainClass, booking.getJourneyDate(),
+                    new StopRange(entry.getFromStop(), entry.getToStop()), entry.getSeats());
+            // Strict FIFO: a party that does not fit blocks the ones behind it
+            if (seats == null) {
+                break;
+            }
+            int i = 0;
+            for (Passenger passenger : booking.getPassengers()) {
+                passenger.setSeatNumber(SeatInventory.toSeatNumber(seats[i++]));
+            }
+            // A promoted booking still has to be paid for, so its seats are only held like a new booking's
+            String status = paymentHolds.isRequired() ? "PENDING_PAYMENT" : "CONFIRMED";
+            booking.setStatus(status);
+            if ("PENDING_PAYMENT".equals(status)) {
+                booking.setHoldExpiresAt(paymentHolds.newExpiry());
+                paymentHolds.holdAfterCommit(booking.getId(), booking.getHoldExpiresAt());
+            }
+            pnrCache.invalidate(booking.getPnr());
+            ledger.record(LedgerEvent.seats(LedgerEvent.Type.PROMOTE, booking.getId(), key,
+                    entry.getFromStop(), entry.getToStop(), status, seats));
+            outboxPublisher.publish("CONFIRMED".equals(status) ? BookingEvents.CONFIRMED : BookingEvents.PROMOTED, booking.getId(),
+                    BookingEvents.payload(booking.getId(), booking.getPnr(), status));
+            done.add(entry);
+        }
+        
+        upgradeToRac(key, done);
+        return done;
+    }
+    
+    private void upgradeToRac(InventoryKey key, List<WaitlistEntry> promoted) {
+        if (waitlist.getRacLimit() == 0) {
+            return;
+        }
+        List<WaitlistEntry> upgraded = waitlist.head(key, waitlist.getRacLimit() + promoted.size()).stream()
+                .filter(entry -> !promoted.contains(entry))
+                .limit(waitlist.getRacLimit())
+                .filter(entry -> !entry.isRac())
+                .collect(Collectors.toList());
+        if (upgraded.isEmpty()) {
+            return;
+        }
+        List<Long> ids = upgraded.stream().map(WaitlistEntry::getBookingId).collect(Collectors.toList());
+        bookingRepository.updateStatus(ids, "WAITING", "RAC");
+        bookingRepository.findPnrsByIdIn(ids).forEach(pnrCache::invalidate);
+        ids.forEach(id -> ledger.record(LedgerEvent.seats(LedgerEvent.Type.STATUS, id, key, 0, 0, "RAC", null)));
+        TransactionCallbacks.afterCommit(() -> upgraded.forEach(entry -> entry.setRac(true)));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
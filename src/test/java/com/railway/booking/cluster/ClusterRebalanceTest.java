@@ -0,0 +1,279 @@
+
+package com.railway.booking.cluster;
+
+import com.railway.booking.RailwayBookingApplication;
+import com.railway.booking.inventory.InventoryKey;
+import com.railway.booking.inventory.SeatInventory;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.User;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Three nodes on one shared H2 database take bookings over HTTP while the last node leaves
+ * the membership and rejoins. Afterwards every node must agree on the ring, only a key's
+ * owner may still hold its layout, and no seat may be sold twice or beyond capacity.
+ */
+class ClusterRebalanceTest {
+    
+    private static final int NODES = 3;
+    private static final int TRAINS = 6;
+    private static final int CAPACITY = 12;
+    private static final int USERS = 16;
+    private static final int CLIENTS = 12;
+    private static final long HANDOFF_MILLIS = 300;
+    private static final String SECRET = "rebalance-secret";
+    
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ConfigurableApplicationContext[] nodes = new ConfigurableApplicationContext[NODES];
+    private final Map<String, String> members = new LinkedHashMap<>();
+    private final Long[] trainIds = new Long[TRAINS];
+    private final Long[] trainClassIds = new Long[TRAINS];
+    private final Long[] userIds = new Long[USERS];
+    private long journeyDate;
+    private long journeyDay;
+    
+    @BeforeEach
+    void startNodes() throws IOException {
+        String database = "cluster-" + UUID.randomUUID();
+        for (int i = 0; i < NODES; i++) {
+            members.put("node" + i, "http://localhost:" + freePort());
+        }
+        String spec = members.entrySet().stream()
+                .map(member -> member.getKey() + "=" + member.getValue())
+                .collect(Collectors.joining(","));
+        for (int i = 0; i < NODES; i++) {
+            nodes[i] = startNode(database, "node" + i, spec);
+        }
+        seed(nodes[0]);
+        LocalDate date = LocalDate.now().plusDays(2);
+        journeyDate = date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        journeyDay = date.toEpochDay();
+    }
+    
+    @AfterEach
+    void stopNodes() {
+        for (int i = NODES - 1; i >= 0; i--) {
+            if (nodes[i] != null) {
+                nodes[i].close();
+            }
+        }
+    }
+    
+    @Test
+    void rebalanceUnderLoadKeepsOneOwnerAndSellsEachSeatOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger booked = new AtomicInteger();
+        List<Future<?>> clients = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            clients.add(pool.submit(() -> {
+                while (running.get()) {
+                    if (book() == 200) {
+                        booked.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        Map<String, String> shrunk = new LinkedHashMap<>(members);
+        shrunk.remove("node" + (NODES - 1));
+        Thread.sleep(500);
+        assertEquals(200, changeMembership(shrunk));
+        Thread.sleep(HANDOFF_MILLIS + 500);
+        assertEquals(200, changeMembership(members));
+        Thread.sleep(HANDOFF_MILLIS + 500);
+        running.set(false);
+        for (Future<?> booking : clients) {
+            booking.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        
+        assertTrue(booked.get() > 0, "no booking went through");
+        assertOneOwnerPerLayout();
+        assertNoSeatSoldTwice();
+    }
+    
+    private void assertOneOwnerPerLayout() {
+        Ring ring = nodes[0].getBean(ClusterMembership.class).getRing();
+        assertEquals(2, ring.getVersion(), "both membership changes should have been applied");
+        Map<InventoryKey, String> holders = new HashMap<>();
+        for (ConfigurableApplicationContext node : nodes) {
+            ClusterMembership membership = node.getBean(ClusterMembership.class);
+            assertEquals(ring.getVersion(), membership.getRing().getVersion(), membership.getSelf() + " missed a change");
+            Map<?, ?> layouts = (Map<?, ?>) ReflectionTestUtils.getField(node.getBean(SeatInventory.class), "layouts");
+            for (Object held : layouts.keySet()) {
+                InventoryKey key = (InventoryKey) held;
+                assertEquals(ring.owner(key), membership.getSelf(), membership.getSelf() + " kept a layout it does not own");
+                assertNull(holders.put(key, membership.getSelf()), key + " has a layout on two nodes");
+            }
+        }
+        for (Long trainClassId : trainClassIds) {
+            InventoryKey key = new InventoryKey(trainClassId, journeyDay);
+            String owner = ring.owner(key);
+            assertTrue(holders.getOrDefault(key, owner).equals(owner), key + " is held by a node other than its owner");
+        }
+    }
+    
+    private void assertNoSeatSoldTwice() {
+        JdbcTemplate jdbcTemplate = nodes[0].getBean(JdbcTemplate.class);
+        List<Map<String, Object>> doubleBooked = jdbcTemplate.queryForList(
+                "SELECT b.train_class_id, b.journey_date, p.seat_number FROM passengers p JOIN bookings b ON b.id = p.booking_id " +
+                        "WHERE b.status NOT IN ('CANCELLED', 'WAITING', 'RAC') AND p.seat_number IS NOT NULL " +
+                        "GROUP BY b.train_class_id, b.journey_date, p.seat_number HAVING COUNT(*) > 1");
+        assertTrue(doubleBooked.isEmpty(), "seats held by more than one passenger: " + doubleBooked);
+        List<Map<String, Object>> oversold = jdbcTemplate.queryForList(
+                "SELECT b.train_class_id, COUNT(*) FROM passengers p JOIN bookings b ON b.id = p.booking_id " +
+                        "WHERE b.status NOT IN ('CANCELLED', 'WAITING', 'RAC') " +
+                        "GROUP BY b.train_class_id HAVING COUNT(*) > " + CAPACITY);
+        assertTrue(oversold.isEmpty(), "classes sold beyond capacity: " + oversold);
+    }
+    
+    private int book() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int train = random.nextInt(TRAINS);
+        String body = "{\"userId\":" + userIds[random.nextInt(USERS)]
+                + ",\"trainId\":" + trainIds[train]
+                + ",\"trainClassId\":" + trainClassIds[train]
+                + ",\"journeyDate\":" + journeyDate
+                + ",\"passengers\":[{\"name\":\"Passenger\",\"age\":34,\"gender\":\"F\"}]}";
+        String url = members.get("node" + random.nextInt(NODES));
+        return send(url, "POST", "/api/bookings", body);
+    }
+    
+    private int changeMembership(Map<String, String> next) throws IOException, InterruptedException {
+        String json = next.entrySet().stream()
+                .map(member -> "\"" + member.getKey() + "\":\"" + member.getValue() + "\"")
+                .collect(Collectors.joining(",", "{\"nodes\":{", "}}"));
+        return send(members.get("node0"), "PUT", "/api/cluster/nodes", json);
+    }
+    
+    private int send(String url, String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header(ClusterClient.SECRET, SECRET)
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+    
+    private static ConfigurableApplicationContext startNode(String database, String self, String spec) throws IOException {
+        String port = String.valueOf(URI.create(spec.split(self + "=")[1].split(",")[0]).getPort());
+        return new SpringApplicationBuilder(RailwayBookingApplication.class).run(
+                "--server.port=" + port,
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--logging.level.root=WARN",
+                "--spring.jpa.show-sql=false",
+                "--booking.ledger.dir=" + Files.createTempDirectory("booking-ledger"),
+                "--booking.payment.required=false",
+                "--booking.waitlist.max-length=0",
+                "--booking.admission.user-rate-per-second=1000000",
+                "--booking.admission.user-burst=1000000",
+                "--booking.cluster.self=" + self,
+                "--booking.cluster.nodes=" + spec,
+                "--booking.cluster.secret=" + SECRET,
+                "--booking.cluster.handoff-ms=" + HANDOFF_MILLIS,
+                "--booking.pnr.node-id=" + self.substring("node".length()));
+    }
+    
+    private void seed(ConfigurableApplicationContext context) {
+        StationRepository stationRepository = context.getBean(StationRepository.class);
+        Station source = stationRepository.save(station("SRC"));
+        Station destination = stationRepository.save(station("DST"));
+        TrainRepository trainRepository = context.getBean(TrainRepository.class);
+        for (int i = 0; i < TRAINS; i++) {
+            Train train = new Train();
+            train.setNumber(String.valueOf(22001 + i));
+            train.setName("Rebalance Express " + i);
+            train.setSourceStation(source);
+            train.setDestinationStation(destination);
+            train.setDepartureTime("06:00");
+            train.setArrivalTime("14:00");
+            train.setTotalSeats(CAPACITY);
+            TrainClass trainClass = new TrainClass();
+            trainClass.setTrain(train);
+            trainClass.setClassName("SLEEPER");
+            trainClass.setTotalSeats(CAPACITY);
+            trainClass.setAvailableSeats(CAPACITY);
+            trainClass.setFare(new BigDecimal("450.00"));
+            train.getTrainClasses().add(trainClass);
+            train = trainRepository.save(train);
+            trainIds[i] = train.getId();
+            trainClassIds[i] = train.getTrainClasses().iterator().next().getId();
+        }
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setName("Rebalance User " + i);
+            user.setEmail("rebalance" + i + "@example.com");
+            user.setPassword("password");
+            user.setRole("ROLE_USER");
+            userIds[i] = userRepository.save(user).getId();
+        }
+    }
+    
+    private static Station station(String code) {
+        Station station = new Station();
+        station.setCode(code);
+        station.setName(code + " Central");
+        station.setCity(code);
+        return station;
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
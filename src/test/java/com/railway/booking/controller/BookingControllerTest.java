@@ -0,0 +1,120 @@
+
+package com.railway.booking.controller;
+
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.User;
+import com.railway.booking.repository.BookingRepository;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A booking with no passengers reserves no seats, so it must be rejected rather than
+ * waitlisted as if the class were full.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:booking-controller;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "booking.payment.required=false"
+})
+@AutoConfigureMockMvc
+class BookingControllerTest {
+    
+    @DynamicPropertySource
+    static void ledgerDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("booking-ledger").toString();
+        registry.add("booking.ledger.dir", () -> directory);
+    }
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private StationRepository stationRepository;
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Test
+    void bookingWithoutPassengersIsABadRequest() throws Exception {
+        Train train = trainRepository.save(train(stationRepository.save(station("SRC")), stationRepository.save(station("DST"))));
+        Long trainClassId = train.getTrainClasses().iterator().next().getId();
+        Long userId = userRepository.save(user()).getId();
+        long journeyDate = LocalDate.now().plusDays(3).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        String request = "{\"userId\":" + userId + ",\"trainId\":" + train.getId() + ",\"trainClassId\":" + trainClassId
+                + ",\"journeyDate\":" + journeyDate;
+        
+        mockMvc.perform(post("/api/bookings").contentType(MediaType.APPLICATION_JSON).content(request + ",\"passengers\":[]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/bookings").contentType(MediaType.APPLICATION_JSON).content(request + "}"))
+                .andExpect(status().isBadRequest());
+        
+        assertEquals(0, bookingRepository.count());
+    }
+    
+    private static Station station(String code) {
+        Station station = new Station();
+        station.setCode(code);
+        station.setName(code + " Central");
+        station.setCity(code);
+        return station;
+    }
+    
+    private static Train train(Station source, Station destination) {
+        Train train = new Train();
+        train.setNumber("16001");
+        train.setName("Empty Express");
+        train.setSourceStation(source);
+        train.setDestinationStation(destination);
+        train.setDepartureTime("06:00");
+        train.setArrivalTime("14:00");
+        train.setTotalSeats(2);
+        TrainClass trainClass = new TrainClass();
+        trainClass.setTrain(train);
+        trainClass.setClassName("SLEEPER");
+        trainClass.setTotalSeats(2);
+        trainClass.setAvailableSeats(2);
+        trainClass.setFare(new BigDecimal("450.00"));
+        train.getTrainClasses().add(trainClass);
+        return train;
+    }
+    
+    private static User user() {
+        User user = new User();
+        user.setName("Nobody");
+        user.setEmail("nobody@example.com");
+        user.setPassword("password");
+        user.setRole("ROLE_USER");
+        return user;
+    }
+}
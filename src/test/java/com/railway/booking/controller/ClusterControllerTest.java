@@ -0,0 +1,84 @@
+
+package com.railway.booking.controller;
+
+import com.railway.booking.cluster.ClusterClient;
+import com.railway.booking.cluster.ClusterMembership;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Membership changes name the URLs booking requests are forwarded to, so only callers holding
+ * the cluster secret may make them, whatever {@link ClusterClient#FORWARDED_BY} says.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cluster-controller;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "booking.cluster.self=node0",
+        "booking.cluster.nodes=node0=http://localhost:18080",
+        "booking.cluster.secret=" + ClusterControllerTest.SECRET,
+        "booking.pnr.node-id=0"
+})
+@AutoConfigureMockMvc
+class ClusterControllerTest {
+    
+    static final String SECRET = "controller-secret";
+    private static final String FORGED = "{\"version\":1000,\"nodes\":{\"node0\":\"http://attacker.example\"}}";
+    
+    @DynamicPropertySource
+    static void ledgerDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("booking-ledger").toString();
+        registry.add("booking.ledger.dir", () -> directory);
+    }
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ClusterMembership clusterMembership;
+    
+    @Test
+    void forwardedHeaderAloneDoesNotMakeACallerAPeer() throws Exception {
+        long version = clusterMembership.getRing().getVersion();
+        
+        mockMvc.perform(put("/api/cluster/nodes").contentType(MediaType.APPLICATION_JSON).content(FORGED)
+                        .header(ClusterClient.FORWARDED_BY, "node1"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/cluster/nodes").contentType(MediaType.APPLICATION_JSON).content(FORGED)
+                        .header(ClusterClient.FORWARDED_BY, "node1").header(ClusterClient.SECRET, "guess"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/cluster/nodes").contentType(MediaType.APPLICATION_JSON).content(FORGED))
+                .andExpect(status().isForbidden());
+        
+        assertEquals(version, clusterMembership.getRing().getVersion());
+        assertEquals("http://localhost:18080", clusterMembership.getRing().getNodes().get("node0"));
+    }
+    
+    @Test
+    void peerChangeWithoutAVersionIsABadRequest() throws Exception {
+        mockMvc.perform(put("/api/cluster/nodes").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nodes\":{\"node0\":\"http://localhost:18080\"}}")
+                        .header(ClusterClient.FORWARDED_BY, "node1").header(ClusterClient.SECRET, SECRET))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/cluster/nodes").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":\"next\",\"nodes\":{\"node0\":\"http://localhost:18080\"}}")
+                        .header(ClusterClient.FORWARDED_BY, "node1").header(ClusterClient.SECRET, SECRET))
+                .andExpect(status().isBadRequest());
+    }
+}
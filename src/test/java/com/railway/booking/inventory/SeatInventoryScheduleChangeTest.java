@@ -0,0 +1,162 @@
+
+package com.railway.booking.inventory;
+
+import com.railway.booking.model.Booking;
+import com.railway.booking.model.Passenger;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.TrainStop;
+import com.railway.booking.model.User;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.repository.UserRepository;
+import com.railway.booking.service.BookingService;
+import com.railway.booking.service.TrainService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Books a train, then adds a stop and a seat to it, and checks that the next booking sees
+ * the new route and capacity instead of the layout loaded before the edit.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:seat-inventory-schedule;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "booking.payment.required=false"
+})
+class SeatInventoryScheduleChangeTest {
+    
+    private static final int CAPACITY = 2;
+    
+    @DynamicPropertySource
+    static void ledgerDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("booking-ledger").toString();
+        registry.add("booking.ledger.dir", () -> directory);
+    }
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private TrainService trainService;
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private StationRepository stationRepository;
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Test
+    void bookingAfterAStopAndASeatAreAddedUsesTheNewLayout() {
+        Station origin = stationRepository.save(station("ORG"));
+        Station middle = stationRepository.save(station("MID"));
+        Station added = stationRepository.save(station("ADD"));
+        Station terminus = stationRepository.save(station("END"));
+        Train train = trainRepository.save(train(origin, middle, terminus));
+        Long trainClassId = train.getTrainClasses().iterator().next().getId();
+        Long userId = userRepository.save(user()).getId();
+        Date journeyDate = java.sql.Date.valueOf(LocalDate.now().plusDays(3));
+        
+        Booking full = bookingService.createBooking(userId, train.getId(), trainClassId, journeyDate, passengers(CAPACITY));
+        assertEquals("CONFIRMED", full.getStatus());
+        
+        Train edited = trainRepository.findWithScheduleById(train.getId()).get();
+        edited.getStops().get(2).setStopSequence(3);
+        edited.getStops().add(2, stop(edited, added, 2, "12:00", 450));
+        edited.getTrainClasses().iterator().next().setTotalSeats(CAPACITY + 1);
+        trainService.saveTrain(edited);
+        
+        // ADD to END is the third segment, which the two-segment layout loaded above does not have
+        Booking extended = bookingService.createBooking(userId, train.getId(), trainClassId, journeyDate,
+                added.getId(), terminus.getId(), passengers(1));
+        assertEquals("CONFIRMED", extended.getStatus());
+        assertEquals(0, seatInventory.getAvailableSeats(train.getId(), trainClassId, journeyDate, 2, 3));
+        assertEquals(1, seatInventory.getAvailableSeats(train.getId(), trainClassId, journeyDate, 0, 2));
+    }
+    
+    private static Station station(String code) {
+        Station station = new Station();
+        station.setCode(code);
+        station.setName(code + " Central");
+        station.setCity(code);
+        return station;
+    }
+    
+    private static Train train(Station origin, Station middle, Station terminus) {
+        Train train = new Train();
+        train.setNumber("15001");
+        train.setName("Reroute Express");
+        train.setSourceStation(origin);
+        train.setDestinationStation(terminus);
+        train.setDepartureTime("06:00");
+        train.setArrivalTime("14:00");
+        train.setTotalSeats(CAPACITY);
+        train.getStops().add(stop(train, origin, 0, "06:00", 0));
+        train.getStops().add(stop(train, middle, 1, "09:00", 300));
+        train.getStops().add(stop(train, terminus, 2, "14:00", 600));
+        TrainClass trainClass = new TrainClass();
+        trainClass.setTrain(train);
+        trainClass.setClassName("SLEEPER");
+        trainClass.setTotalSeats(CAPACITY);
+        trainClass.setAvailableSeats(CAPACITY);
+        trainClass.setFare(new BigDecimal("450.00"));
+        train.getTrainClasses().add(trainClass);
+        return train;
+    }
+    
+    private static TrainStop stop(Train train, Station station, int sequence, String time, int distanceKm) {
+        TrainStop stop = new TrainStop();
+        stop.setTrain(train);
+        stop.setStation(station);
+        stop.setStopSequence(sequence);
+        stop.setArrivalTime(time);
+        stop.setDepartureTime(time);
+        stop.setDistanceKm(distanceKm);
+        return stop;
+    }
+    
+    private static User user() {
+        User user = new User();
+        user.setName("Rerouted");
+        user.setEmail("rerouted@example.com");
+        user.setPassword("password");
+        user.setRole("ROLE_USER");
+        return user;
+    }
+    
+    private static List<Passenger> passengers(int count) {
+        List<Passenger> passengers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Passenger passenger = new Passenger();
+            passenger.setName("Passenger " + i);
+            passenger.setAge(34);
+            passenger.setGender("F");
+            passengers.add(passenger);
+        }
+        return passengers;
+    }
+}
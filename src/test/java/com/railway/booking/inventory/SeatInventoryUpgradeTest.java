@@ -0,0 +1,140 @@
+
+package com.railway.booking.inventory;
+
+import com.railway.booking.RailwayBookingApplication;
+import com.railway.booking.model.Passenger;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.User;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.repository.UserRepository;
+import com.railway.booking.service.BookingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Restarts the application against a train_classes table written before totalSeats existed,
+ * once with the column missing and once with it filled with 0 the way MySQL fills a column
+ * added as NOT NULL, and checks that existing classes get their capacity back.
+ */
+class SeatInventoryUpgradeTest {
+    
+    private static final int CAPACITY = 20;
+    private static final int BOOKED = 3;
+    
+    @Test
+    void addsTotalSeatsToExistingClasses() throws IOException {
+        assertUpgrade("ALTER TABLE train_classes DROP COLUMN total_seats");
+    }
+    
+    @Test
+    void backfillsClassesLeftAtZero() throws IOException {
+        assertUpgrade("UPDATE train_classes SET total_seats = 0");
+    }
+    
+    private static void assertUpgrade(String downgrade) throws IOException {
+        String database = "upgrade-" + UUID.randomUUID();
+        String ledger = Files.createTempDirectory("booking-ledger").toString();
+        Date journeyDate = java.sql.Date.valueOf(LocalDate.now().plusDays(3));
+        Long trainId;
+        Long trainClassId;
+        try (ConfigurableApplicationContext context = start(database, ledger)) {
+            Train train = context.getBean(TrainRepository.class).save(train(context));
+            trainId = train.getId();
+            trainClassId = train.getTrainClasses().iterator().next().getId();
+            Long userId = context.getBean(UserRepository.class).save(user()).getId();
+            context.getBean(BookingService.class).createBooking(userId, trainId, trainClassId, journeyDate, passengers());
+            context.getBean(SeatInventoryWriter.class).flush();
+            context.getBean(JdbcTemplate.class).execute(downgrade);
+        }
+        
+        try (ConfigurableApplicationContext context = start(database, ledger)) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            assertEquals(CAPACITY, jdbcTemplate.queryForObject("SELECT total_seats FROM train_classes WHERE id = ?", Integer.class, trainClassId));
+            assertEquals(CAPACITY - BOOKED, context.getBean(SeatInventory.class).getAvailableSeats(trainId, trainClassId, journeyDate, 0, 1));
+            assertThrows(RuntimeException.class, () -> jdbcTemplate.update("UPDATE train_classes SET total_seats = NULL WHERE id = ?", trainClassId),
+                    "total_seats should be required once it is backfilled");
+        }
+    }
+    
+    private static ConfigurableApplicationContext start(String database, String ledger) {
+        return new SpringApplicationBuilder(RailwayBookingApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--booking.ledger.dir=" + ledger,
+                "--booking.payment.required=false");
+    }
+    
+    private static Train train(ConfigurableApplicationContext context) {
+        StationRepository stationRepository = context.getBean(StationRepository.class);
+        Train train = new Train();
+        train.setNumber("13001");
+        train.setName("Upgrade Express");
+        train.setSourceStation(stationRepository.save(station("SRC")));
+        train.setDestinationStation(stationRepository.save(station("DST")));
+        train.setDepartureTime("06:00");
+        train.setArrivalTime("14:00");
+        train.setTotalSeats(CAPACITY);
+        TrainClass trainClass = new TrainClass();
+        trainClass.setTrain(train);
+        trainClass.setClassName("SLEEPER");
+        trainClass.setTotalSeats(CAPACITY);
+        trainClass.setAvailableSeats(CAPACITY);
+        trainClass.setFare(new BigDecimal("450.00"));
+        train.getTrainClasses().add(trainClass);
+        return train;
+    }
+    
+    private static Station station(String code) {
+        Station station = new Station();
+        station.setCode(code);
+        station.setName(code + " Central");
+        station.setCity(code);
+        return station;
+    }
+    
+    private static User user() {
+        User user = new User();
+        user.setName("Upgrader");
+        user.setEmail("upgrader@example.com");
+        user.setPassword("password");
+        user.setRole("ROLE_USER");
+        return user;
+    }
+    
+    private static List<Passenger> passengers() {
+        List<Passenger> passengers = new ArrayList<>();
+        for (int i = 0; i < BOOKED; i++) {
+            Passenger passenger = new Passenger();
+            passenger.setName("Passenger " + i);
+            passenger.setAge(34);
+            passenger.setGender("F");
+            passengers.add(passenger);
+        }
+        return passengers;
+    }
+}
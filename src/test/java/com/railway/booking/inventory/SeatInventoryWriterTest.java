@@ -0,0 +1,196 @@
+
+package com.railway.booking.inventory;
+
+import com.railway.booking.model.Booking;
+import com.railway.booking.model.Passenger;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.User;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainClassRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.repository.UserRepository;
+import com.railway.booking.service.BookingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Races bookings and cancellations on one class against a thread flushing seat deltas
+ * non-stop, then checks that no seat was sold twice or beyond capacity and that the
+ * class-wide availableSeats counter converged on what was actually sold.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:seat-inventory-writer;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "booking.payment.required=false",
+        "booking.waitlist.max-length=0",
+        "booking.inventory.flush-interval-ms=5"
+})
+class SeatInventoryWriterTest {
+    
+    private static final int CAPACITY = 20;
+    private static final int BOOKERS = 8;
+    private static final int ATTEMPTS = 15;
+    
+    @DynamicPropertySource
+    static void ledgerDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("booking-ledger").toString();
+        registry.add("booking.ledger.dir", () -> directory);
+    }
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private SeatInventoryWriter writer;
+    
+    @Autowired
+    private StationRepository stationRepository;
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Autowired
+    private TrainClassRepository trainClassRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void concurrentBookingsAndFlushesNeitherOversellNorLoseSeats() throws Exception {
+        Train train = trainRepository.save(train(stationRepository.save(station("SRC")), stationRepository.save(station("DST"))));
+        Long trainClassId = train.getTrainClasses().iterator().next().getId();
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < BOOKERS; i++) {
+            userIds.add(userRepository.save(user(i)).getId());
+        }
+        Date journeyDate = java.sql.Date.valueOf(LocalDate.now().plusDays(3));
+        
+        ExecutorService pool = Executors.newFixedThreadPool(BOOKERS + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger flushes = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        Future<?> flusher = pool.submit(() -> {
+            while (running.get()) {
+                writer.flush();
+                flushes.incrementAndGet();
+            }
+        });
+        List<Future<?>> bookers = new ArrayList<>();
+        for (Long userId : userIds) {
+            bookers.add(pool.submit(() -> {
+                for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+                    Booking booking;
+                    try {
+                        booking = bookingService.createBooking(userId, train.getId(), trainClassId, journeyDate,
+                                passengers(1 + ThreadLocalRandom.current().nextInt(2)));
+                    } catch (RuntimeException soldOut) {
+                        continue;
+                    }
+                    // Hand some seats back so releases race the flushes too
+                    if (attempt % 3 == 0) {
+                        bookingService.cancelBooking(booking.getId());
+                        cancelled.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> booker : bookers) {
+            booker.get(60, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        flusher.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+        writer.flush();
+        
+        int seated = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM passengers p JOIN bookings b ON b.id = p.booking_id " +
+                "WHERE b.train_class_id = ? AND b.status NOT IN ('CANCELLED', 'WAITING', 'RAC')", Integer.class, trainClassId);
+        int distinctSeats = jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT p.seat_number) FROM passengers p JOIN bookings b ON b.id = p.booking_id " +
+                "WHERE b.train_class_id = ? AND b.status NOT IN ('CANCELLED', 'WAITING', 'RAC')", Integer.class, trainClassId);
+        
+        assertTrue(flushes.get() > BOOKERS, "the flusher should have run throughout");
+        assertTrue(cancelled.get() > 0, "some bookings should have been cancelled");
+        assertTrue(seated > 0 && seated <= CAPACITY, "sold " + seated + " seats of " + CAPACITY);
+        assertEquals(seated, distinctSeats, "a seat was sold twice");
+        assertEquals(CAPACITY - seated, trainClassRepository.findById(trainClassId).get().getAvailableSeats());
+    }
+    
+    private static Station station(String code) {
+        Station station = new Station();
+        station.setCode(code);
+        station.setName(code + " Central");
+        station.setCity(code);
+        return station;
+    }
+    
+    private static Train train(Station source, Station destination) {
+        Train train = new Train();
+        train.setNumber("12001");
+        train.setName("Flush Express");
+        train.setSourceStation(source);
+        train.setDestinationStation(destination);
+        train.setDepartureTime("06:00");
+        train.setArrivalTime("14:00");
+        train.setTotalSeats(CAPACITY);
+        TrainClass trainClass = new TrainClass();
+        trainClass.setTrain(train);
+        trainClass.setClassName("SLEEPER");
+        trainClass.setTotalSeats(CAPACITY);
+        trainClass.setAvailableSeats(CAPACITY);
+        trainClass.setFare(new BigDecimal("450.00"));
+        train.getTrainClasses().add(trainClass);
+        return train;
+    }
+    
+    private static User user(int i) {
+        User user = new User();
+        user.setName("Booker " + i);
+        user.setEmail("booker" + i + "@example.com");
+        user.setPassword("password");
+        user.setRole("ROLE_USER");
+        return user;
+    }
+    
+    private static List<Passenger> passengers(int count) {
+        List<Passenger> passengers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Passenger passenger = new Passenger();
+            passenger.setName("Passenger " + i);
+            passenger.setAge(34);
+            passenger.setGender("F");
+            passengers.add(passenger);
+        }
+        return passengers;
+    }
+}
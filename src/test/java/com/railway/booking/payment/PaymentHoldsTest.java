@@ -0,0 +1,197 @@
+
+package com.railway.booking.payment;
+
+import com.railway.booking.dto.BookingRequest;
+import com.railway.booking.dto.BulkBookingResult;
+import com.railway.booking.model.Booking;
+import com.railway.booking.model.Passenger;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.model.User;
+import com.railway.booking.outbox.BookingEvents;
+import com.railway.booking.repository.BookingRepository;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainRepository;
+import com.railway.booking.repository.UserRepository;
+import com.railway.booking.service.BookingService;
+import com.railway.booking.service.BulkBookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * With payment required, bulk bookings and bookings promoted off the waitlist must wait for
+ * payment like single bookings do: their seats are held, not confirmed, and the hold expires.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:payment-holds;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "booking.payment.required=true",
+        "booking.payment.hold-ttl-seconds=2"
+})
+class PaymentHoldsTest {
+    
+    private static final int CAPACITY = 2;
+    private static final AtomicInteger TRAINS = new AtomicInteger();
+    
+    @DynamicPropertySource
+    static void ledgerDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("booking-ledger").toString();
+        registry.add("booking.ledger.dir", () -> directory);
+    }
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private BulkBookingService bulkBookingService;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private StationRepository stationRepository;
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private Train train;
+    private Long trainClassId;
+    private Long userId;
+    private final Date journeyDate = java.sql.Date.valueOf(LocalDate.now().plusDays(3));
+    
+    @BeforeEach
+    void seed() {
+        int number = TRAINS.incrementAndGet();
+        train = trainRepository.save(train(number, stationRepository.save(station("S" + number)), stationRepository.save(station("D" + number))));
+        trainClassId = train.getTrainClasses().iterator().next().getId();
+        userId = userRepository.save(user(number)).getId();
+    }
+    
+    @Test
+    void bulkBookingsAreHeldUntilPaid() throws InterruptedException {
+        BookingRequest request = new BookingRequest();
+        request.setUserId(userId);
+        request.setTrainId(train.getId());
+        request.setTrainClassId(trainClassId);
+        request.setJourneyDate(journeyDate.getTime());
+        request.setPassengers(passengers(CAPACITY));
+        
+        BulkBookingResult result = bulkBookingService.createBookings(Collections.singletonList(request)).get(0);
+        
+        assertTrue(result.isSuccess(), result.getError());
+        Booking booking = bookingRepository.findById(result.getBookingId()).get();
+        assertEquals("PENDING_PAYMENT", booking.getStatus());
+        assertNotNull(booking.getHoldExpiresAt());
+        assertEquals("PENDING_PAYMENT", eventStatus(BookingEvents.CREATED, booking.getId()));
+        assertEquals("CANCELLED", awaitStatusChange(booking.getId(), "PENDING_PAYMENT"), "the unpaid hold should expire");
+    }
+    
+    @Test
+    void promotedBookingsAreHeldUntilPaid() throws InterruptedException {
+        Booking first = bookingService.createBooking(userId, train.getId(), trainClassId, journeyDate, passengers(CAPACITY));
+        Booking waiting = bookingService.createBooking(userId, train.getId(), trainClassId, journeyDate, passengers(1));
+        assertEquals("WAITING", waiting.getStatus());
+        
+        bookingService.cancelBooking(first.getId());
+        
+        assertEquals("PENDING_PAYMENT", awaitStatusChange(waiting.getId(), "WAITING"));
+        Booking promoted = bookingRepository.findById(waiting.getId()).get();
+        assertNotNull(promoted.getHoldExpiresAt());
+        assertEquals("PENDING_PAYMENT", eventStatus(BookingEvents.PROMOTED, promoted.getId()));
+        assertEquals("CANCELLED", awaitStatusChange(promoted.getId(), "PENDING_PAYMENT"), "the unpaid hold should expire");
+    }
+    
+    private String eventStatus(String eventType, Long bookingId) {
+        String payload = jdbcTemplate.queryForObject("SELECT payload FROM outbox_events WHERE event_type = ? AND aggregate_id = ?",
+                String.class, eventType, bookingId);
+        return payload.replaceAll(".*\"status\":\"([A-Z_]+)\".*", "$1");
+    }
+    
+    private String awaitStatusChange(Long bookingId, String from) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        String status = from;
+        while (from.equals(status) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            status = bookingRepository.findById(bookingId).get().getStatus();
+        }
+        return status;
+    }
+    
+    private static Station station(String code) {
+        Station station = new Station();
+        station.setCode(code);
+        station.setName(code + " Central");
+        station.setCity(code);
+        return station;
+    }
+    
+    private static Train train(int number, Station source, Station destination) {
+        Train train = new Train();
+        train.setNumber(String.valueOf(14000 + number));
+        train.setName("Hold Express " + number);
+        train.setSourceStation(source);
+        train.setDestinationStation(destination);
+        train.setDepartureTime("06:00");
+        train.setArrivalTime("14:00");
+        train.setTotalSeats(CAPACITY);
+        TrainClass trainClass = new TrainClass();
+        trainClass.setTrain(train);
+        trainClass.setClassName("SLEEPER");
+        trainClass.setTotalSeats(CAPACITY);
+        trainClass.setAvailableSeats(CAPACITY);
+        trainClass.setFare(new BigDecimal("450.00"));
+        train.getTrainClasses().add(trainClass);
+        return train;
+    }
+    
+    private static User user(int number) {
+        User user = new User();
+        user.setName("Payer " + number);
+        user.setEmail("payer" + number + "@example.com");
+        user.setPassword("password");
+        user.setRole("ROLE_USER");
+        return user;
+    }
+    
+    private static List<Passenger> passengers(int count) {
+        List<Passenger> passengers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Passenger passenger = new Passenger();
+            passenger.setName("Passenger " + i);
+            passenger.setAge(34);
+            passenger.setGender("F");
+            passengers.add(passenger);
+        }
+        return passengers;
+    }
+}
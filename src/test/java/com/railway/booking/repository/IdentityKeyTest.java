@@ -0,0 +1,87 @@
+
+package com.railway.booking.repository;
+
+import com.railway.booking.model.Station;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Inserts rows with identity keys from many threads at once, as the load driver does with
+ * bookings, and checks that no two get the same id. H2's MySQL mode fails this: after each
+ * insert it moves the identity sequence up to the inserted value without a lock, so a
+ * slower insert can move it back. The tests and benchmarks therefore run H2 in its
+ * default mode.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:identity-key;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class IdentityKeyTest {
+    
+    private static final int THREADS = 32;
+    private static final int INSERTS = 400;
+    
+    @DynamicPropertySource
+    static void ledgerDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("booking-ledger").toString();
+        registry.add("booking.ledger.dir", () -> directory);
+    }
+    
+    @Autowired
+    private StationRepository stationRepository;
+    
+    @Test
+    void concurrentInsertsGetDistinctIds() throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> inserters = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            inserters.add(pool.submit(() -> {
+                for (int i = 0; i < INSERTS; i++) {
+                    try {
+                        stationRepository.save(station(thread + "-" + i));
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> inserter : inserters) {
+            inserter.get(120, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        
+        assertEquals(0, failures.get(), "concurrent inserts failed on duplicate ids");
+        assertEquals(THREADS * INSERTS, stationRepository.count());
+    }
+    
+    private static Station station(String code) {
+        Station station = new Station();
+        station.setCode(code);
+        station.setName(code + " Central");
+        station.setCity(code);
+        return station;
+    }
+}
@@ -0,0 +1,108 @@
+
+package com.railway.booking.search;
+
+import com.railway.booking.event.TrainScheduleChangedEvent;
+import com.railway.booking.model.Station;
+import com.railway.booking.model.Train;
+import com.railway.booking.model.TrainClass;
+import com.railway.booking.repository.StationRepository;
+import com.railway.booking.repository.TrainRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Re-indexes a train over and over while another thread searches its route, and checks that
+ * no search comes back without it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:route-index;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class RouteIndexTest {
+    
+    private static final int CHANGES = 200;
+    
+    @DynamicPropertySource
+    static void ledgerDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("booking-ledger").toString();
+        registry.add("booking.ledger.dir", () -> directory);
+    }
+    
+    @Autowired
+    private RouteIndex routeIndex;
+    
+    @Autowired
+    private StationRepository stationRepository;
+    
+    @Autowired
+    private TrainRepository trainRepository;
+    
+    @Test
+    void searchNeverMissesATrainWhileItIsReindexed() throws InterruptedException {
+        Station source = stationRepository.save(station("SRC"));
+        Station destination = stationRepository.save(station("DST"));
+        Train train = trainRepository.save(train(source, destination));
+        routeIndex.rebuild();
+        
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        Thread searcher = new Thread(() -> {
+            while (running.get()) {
+                if (routeIndex.search(source.getId(), destination.getId(), 1, null).isEmpty()) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+        searcher.start();
+        for (int i = 0; i < CHANGES; i++) {
+            routeIndex.onScheduleChanged(new TrainScheduleChangedEvent(train.getId(), false));
+        }
+        running.set(false);
+        searcher.join();
+        
+        assertEquals(0, misses.get(), "searches that ran while the train was being re-indexed missed it");
+        assertEquals(1, routeIndex.search(source.getId(), destination.getId(), 1, null).size());
+    }
+    
+    private static Station station(String code) {
+        Station station = new Station();
+        station.setCode(code);
+        station.setName(code + " Central");
+        station.setCity(code);
+        return station;
+    }
+    
+    private static Train train(Station source, Station destination) {
+        Train train = new Train();
+        train.setNumber("17001");
+        train.setName("Index Express");
+        train.setSourceStation(source);
+        train.setDestinationStation(destination);
+        train.setDepartureTime("06:00");
+        train.setArrivalTime("14:00");
+        train.setTotalSeats(2);
+        TrainClass trainClass = new TrainClass();
+        trainClass.setTrain(train);
+        trainClass.setClassName("SLEEPER");
+        trainClass.setTotalSeats(2);
+        trainClass.setAvailableSeats(2);
+        trainClass.setFare(new BigDecimal("450.00"));
+        train.getTrainClasses().add(trainClass);
+        return train;
+    }
+}
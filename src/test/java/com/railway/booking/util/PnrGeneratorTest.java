@@ -0,0 +1,33 @@
+
+package com.railway.booking.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PnrGeneratorTest {
+    
+    private static final String CLUSTER = "node0=http://10.0.0.1:8080,node1=http://10.0.0.2:8080";
+    
+    @Test
+    void clusterNodeWithoutNodeIdRefusesToStart() {
+        assertThrows(IllegalStateException.class, () -> new PnrGenerator(null, CLUSTER));
+    }
+    
+    @Test
+    void singleNodeDefaultsToNodeZero() {
+        assertEquals(0, nodeOf(new PnrGenerator(null, "").next()));
+    }
+    
+    @Test
+    void clusterNodeUsesItsConfiguredNodeId() {
+        assertEquals(7, nodeOf(new PnrGenerator(7, CLUSTER).next()));
+    }
+    
+    // 32 bits of seconds, 10 bits of node id, 14 bits of sequence
+    private static int nodeOf(String pnr) {
+        long value = Long.parseLong(pnr.substring(PnrGenerator.PREFIX.length()), 36);
+        return (int) ((value >>> 14) & 1023);
+    }
+}